@@ -0,0 +1,125 @@
+-- Migrazione di un database esistente alle chiavi surrogate intere.
+--
+-- studente, classe_virtuale e task_didattico ricevono una colonna Id intera come chiave primaria;
+-- indirizzo email, codice univoco e titolo restano chiavi univoche. profilo_personale, attivita,
+-- riconoscimento e i riferimenti alla classe virtuale usano gli Id al posto delle chiavi naturali.
+-- Un database creato con ScriptDB.sql ha già questa struttura.
+USE sistema_gestionale_di_task_didattici_con_badge;
+
+--
+-- Chiavi surrogate
+--
+
+ALTER TABLE `classe_virtuale` ADD COLUMN `Id` int NOT NULL AUTO_INCREMENT FIRST, ADD UNIQUE KEY `Id_UNIQUE` (`Id`);
+ALTER TABLE `studente` ADD COLUMN `Id` int NOT NULL AUTO_INCREMENT FIRST, ADD UNIQUE KEY `Id_UNIQUE` (`Id`);
+ALTER TABLE `task_didattico` ADD COLUMN `Id` int NOT NULL AUTO_INCREMENT FIRST, ADD UNIQUE KEY `Id_UNIQUE` (`Id`);
+
+--
+-- Riferimenti tradotti negli Id
+--
+
+ALTER TABLE `studente` ADD COLUMN `classe_virtuale_Id` int DEFAULT NULL;
+UPDATE `studente` s JOIN `classe_virtuale` c ON c.`CodiceUnivoco` = s.`classe_virtuale_CodiceUnivoco`
+SET s.`classe_virtuale_Id` = c.`Id`;
+
+ALTER TABLE `task_didattico` ADD COLUMN `classe_virtuale_Id` int DEFAULT NULL;
+UPDATE `task_didattico` t JOIN `classe_virtuale` c ON c.`CodiceUnivoco` = t.`classe_virtuale_CodiceUnivoco`
+SET t.`classe_virtuale_Id` = c.`Id`;
+
+ALTER TABLE `profilo_personale` ADD COLUMN `studente_Id` int DEFAULT NULL;
+UPDATE `profilo_personale` pp JOIN `studente` s ON s.`IndirizzoEmailIstituzionale` = pp.`studente_IndirizzoEmailIstituzionale`
+SET pp.`studente_Id` = s.`Id`;
+
+ALTER TABLE `attivita` ADD COLUMN `profilo_personale_studente_Id` int DEFAULT NULL, ADD COLUMN `task_didattico_Id` int DEFAULT NULL;
+UPDATE `attivita` a
+JOIN `studente` s ON s.`IndirizzoEmailIstituzionale` = a.`profilo_personale_studente_IndirizzoEmailIstituzionale`
+JOIN `task_didattico` t ON t.`Titolo` = a.`task_didattico_Titolo`
+SET a.`profilo_personale_studente_Id` = s.`Id`, a.`task_didattico_Id` = t.`Id`;
+
+ALTER TABLE `riconoscimento` ADD COLUMN `profilo_personale_studente_Id` int DEFAULT NULL;
+UPDATE `riconoscimento` r JOIN `studente` s ON s.`IndirizzoEmailIstituzionale` = r.`profilo_personale_studente_IndirizzoEmailIstituzionale`
+SET r.`profilo_personale_studente_Id` = s.`Id`;
+
+--
+-- Vincoli sulle chiavi naturali
+--
+
+ALTER TABLE `attivita`
+  DROP FOREIGN KEY `fk_profilo_personale_has_task_didattico_profilo_personale1`,
+  DROP FOREIGN KEY `fk_profilo_personale_has_task_didattico_task_didattico1`;
+ALTER TABLE `riconoscimento` DROP FOREIGN KEY `fk_profilo_personale_has_badge_profilo_personale1`;
+ALTER TABLE `profilo_personale` DROP FOREIGN KEY `fk_profilo_personale_studente1`;
+ALTER TABLE `studente` DROP FOREIGN KEY `fk_studente_classe_virtuale1`;
+ALTER TABLE `task_didattico` DROP FOREIGN KEY `fk_task_didattico_classe_virtuale1`;
+
+--
+-- Nuove chiavi primarie e indici
+--
+
+ALTER TABLE `classe_virtuale`
+  DROP PRIMARY KEY,
+  DROP INDEX `Id_UNIQUE`,
+  ADD PRIMARY KEY (`Id`),
+  ADD UNIQUE KEY `CodiceUnivoco_UNIQUE` (`CodiceUnivoco`);
+
+ALTER TABLE `studente`
+  DROP PRIMARY KEY,
+  DROP INDEX `Id_UNIQUE`,
+  DROP INDEX `fk_studente_classe_virtuale1_idx`,
+  DROP COLUMN `classe_virtuale_CodiceUnivoco`,
+  ADD PRIMARY KEY (`Id`),
+  ADD UNIQUE KEY `IndirizzoEmailIstituzionale_UNIQUE` (`IndirizzoEmailIstituzionale`),
+  ADD KEY `fk_studente_classe_virtuale1_idx` (`classe_virtuale_Id`);
+
+ALTER TABLE `task_didattico`
+  DROP PRIMARY KEY,
+  DROP INDEX `Id_UNIQUE`,
+  DROP INDEX `fk_task_didattico_classe_virtuale1_idx`,
+  DROP COLUMN `classe_virtuale_CodiceUnivoco`,
+  MODIFY `classe_virtuale_Id` int NOT NULL,
+  ADD PRIMARY KEY (`Id`),
+  ADD UNIQUE KEY `Titolo_UNIQUE` (`Titolo`),
+  ADD KEY `fk_task_didattico_classe_virtuale1_idx` (`classe_virtuale_Id`,`Titolo`);
+
+ALTER TABLE `profilo_personale`
+  DROP PRIMARY KEY,
+  DROP INDEX `fk_profilo_personale_studente1_idx`,
+  DROP COLUMN `studente_IndirizzoEmailIstituzionale`,
+  MODIFY `studente_Id` int NOT NULL,
+  ADD PRIMARY KEY (`studente_Id`);
+
+ALTER TABLE `attivita`
+  DROP PRIMARY KEY,
+  DROP INDEX `fk_profilo_personale_has_task_didattico_task_didattico1_idx`,
+  DROP INDEX `fk_profilo_personale_has_task_didattico_profilo_personale1_idx`,
+  DROP COLUMN `profilo_personale_studente_IndirizzoEmailIstituzionale`,
+  DROP COLUMN `task_didattico_Titolo`,
+  MODIFY `profilo_personale_studente_Id` int NOT NULL FIRST,
+  MODIFY `task_didattico_Id` int NOT NULL AFTER `profilo_personale_studente_Id`,
+  ADD PRIMARY KEY (`profilo_personale_studente_Id`,`task_didattico_Id`),
+  ADD KEY `fk_profilo_personale_has_task_didattico_task_didattico1_idx` (`task_didattico_Id`,`Consegnato`);
+
+ALTER TABLE `riconoscimento`
+  DROP PRIMARY KEY,
+  DROP INDEX `fk_profilo_personale_has_badge_profilo_personale1_idx`,
+  DROP COLUMN `profilo_personale_studente_IndirizzoEmailIstituzionale`,
+  MODIFY `profilo_personale_studente_Id` int NOT NULL FIRST,
+  ADD PRIMARY KEY (`profilo_personale_studente_Id`,`badge_Nome`);
+
+--
+-- Vincoli sulle chiavi surrogate
+--
+
+ALTER TABLE `studente` ADD CONSTRAINT `fk_studente_classe_virtuale1`
+  FOREIGN KEY (`classe_virtuale_Id`) REFERENCES `classe_virtuale` (`Id`);
+ALTER TABLE `task_didattico` ADD CONSTRAINT `fk_task_didattico_classe_virtuale1`
+  FOREIGN KEY (`classe_virtuale_Id`) REFERENCES `classe_virtuale` (`Id`);
+ALTER TABLE `profilo_personale` ADD CONSTRAINT `fk_profilo_personale_studente1`
+  FOREIGN KEY (`studente_Id`) REFERENCES `studente` (`Id`);
+ALTER TABLE `attivita`
+  ADD CONSTRAINT `fk_profilo_personale_has_task_didattico_profilo_personale1`
+  FOREIGN KEY (`profilo_personale_studente_Id`) REFERENCES `profilo_personale` (`studente_Id`),
+  ADD CONSTRAINT `fk_profilo_personale_has_task_didattico_task_didattico1`
+  FOREIGN KEY (`task_didattico_Id`) REFERENCES `task_didattico` (`Id`);
+ALTER TABLE `riconoscimento` ADD CONSTRAINT `fk_profilo_personale_has_badge_profilo_personale1`
+  FOREIGN KEY (`profilo_personale_studente_Id`) REFERENCES `profilo_personale` (`studente_Id`);
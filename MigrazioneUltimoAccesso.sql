@@ -0,0 +1,8 @@
+-- Migrazione di un database esistente: data dell'ultimo accesso degli studenti.
+--
+-- Il Controller legge all'avvio i profili personali solo degli studenti che hanno fatto accesso più di recente;
+-- gli altri profili vengono letti al primo utilizzo. La colonna vale NULL finché lo studente non accede.
+-- Un database creato con ScriptDB.sql ha già questa struttura.
+USE sistema_gestionale_di_task_didattici_con_badge;
+
+ALTER TABLE `studente` ADD COLUMN `UltimoAccesso` datetime DEFAULT NULL, ADD KEY `UltimoAccesso_idx` (`UltimoAccesso`);
@@ -1,8 +1,8 @@
 package boundary;
 
+import dto.IntestazioneTaskDTO;
 import dto.StudenteDTO;
-import dto.TaskDidatticoDTO;
-import control.Controller;
+import control.ControllerAsincrono;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -18,7 +18,7 @@ import java.util.List;
  * La classe BoundaryClasseVirtuale rappresenta l'interfaccia grafica attraverso cui un docente può monitorare e gestire una classe virtuale.
  * <p>
  * Questa schermata consente al docente di:
- * - Visualizzare i task assegnati agli studenti della classe selezionata
+ * - Visualizzare i task assegnati agli studenti della classe selezionata e, con un doppio clic, la descrizione di un task
  * - Visualizzare gli studenti che hanno completato un task e per ogni studente quali task sono stati completati
  * - Creare un nuovo task didattico con controlli sulla validità dei campi inseriti
  * - Tornare alla schermata delle classi associate al docente
@@ -40,10 +40,11 @@ import java.util.List;
  * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
  */
 public class BoundaryClasseVirtuale extends JFrame {
-    Controller controller = Controller.getInstance();
+    ControllerAsincrono controller = ControllerAsincrono.getInstance();
     //COSTANTI
     private static final String MONITORAGGIOCLASSE = "monitoraggioClasse";
     private static final String STUDENTICONTASKCOMPLETATO = "studentiConTaskCompletato";
+    private static final Object[] COLONNE_TASK = {"Titolo", "Scadenza", "Punti Max"};
     //BOTTONI
     private JButton taskAssegnatiButton;
     private JButton rendimentoMedioButton;
@@ -148,44 +149,50 @@ public class BoundaryClasseVirtuale extends JFrame {
         });
 
 
+        mostraDescrizioneConDoppioClic(table1);
+        mostraDescrizioneConDoppioClic(taskCompletatiTable);
+
         //Crea TASK
         gestioneCreazioneTask(codiceClasse,emailDocente);
     }
 
     /**
      * Mostra l'elenco dei task attualmente assegnati alla classe selezionata.
-     * I task vengono ottenuti tramite il Controller e visualizzati nella tabella associata.
+     * I task vengono ottenuti tramite il Controller una pagina alla volta, man mano che la tabella viene scorsa.
      *
      * @param codiceClasse codice identificativo della classe virtuale.
      * @param emailDocente indirizzo email istituzionale del docente.
      */
     private void mostraTaskAssegnatiClasse(String codiceClasse,String emailDocente) {
-        List<TaskDidatticoDTO> taskList = controller.ottieniTaskAssegnatiClasse(codiceClasse,emailDocente);
-
-        generaTabellaDaListaTask(taskList, table1);
+        new TabellaPaginata<>(table1, COLONNE_TASK,
+                (cursore, dimensione) -> controller.ottieniTaskAssegnatiClasse(codiceClasse, emailDocente, cursore, dimensione),
+                BoundaryClasseVirtuale::rigaTask, this::mostraMessaggio);
     }
 
     /**
      * Mostra i task che lo studente identificato dall'email ha consegnato.
-     * I task sono ottenuti dal Controller e visualizzati in una tabella dedicata.
+     * I task sono ottenuti dal Controller una pagina alla volta e visualizzati in una tabella dedicata.
      *
      * @param emailStudente indirizzo email dello studente di cui visualizzare i task consegnati.
      */
     private void mostraTaskConsegnatiStudente(String emailStudente) {
-        List<TaskDidatticoDTO> taskList = controller.ottieniTaskConsegnatiDaStudente(emailStudente);
-        generaTabellaDaListaTask(taskList, taskCompletatiTable);
+        new TabellaPaginata<>(taskCompletatiTable, COLONNE_TASK,
+                (cursore, dimensione) -> controller.ottieniTaskConsegnatiDaStudente(emailStudente, cursore, dimensione),
+                BoundaryClasseVirtuale::rigaTask, this::mostraMessaggio);
     }
 
     /**
      * Mostra l'elenco degli studenti della classe che hanno consegnato almeno un task.
-     * I dati sono ottenuti tramite il Controller e visualizzati in una tabella.
+     * I dati sono ottenuti tramite il Controller una pagina alla volta e visualizzati in una tabella
+     * con colonne nome, cognome ed email.
      *
      * @param codiceClasse codice univoco della classe da analizzare.
      * @param emailDocente indirizzo email istituzionale del docente.
      */
     private void mostraStudentiConTaskConsegnati(String codiceClasse,String emailDocente) {
-        List<StudenteDTO> studenti = controller.ottieniStudentiConAlmenoUnTaskConsegnato(codiceClasse, emailDocente);
-        generaTabellaStudenti(studenti, studentiConTaskCompletatiTable);
+        new TabellaPaginata<StudenteDTO>(studentiConTaskCompletatiTable, new Object[]{"Nome", "Cognome", "Email"},
+                (cursore, dimensione) -> controller.ottieniStudentiConAlmenoUnTaskConsegnato(codiceClasse, emailDocente, cursore, dimensione),
+                s -> new Object[]{s.getNome(), s.getCognome(), s.getEmail()}, this::mostraMessaggio);
     }
 
     /**
@@ -237,30 +244,31 @@ public class BoundaryClasseVirtuale extends JFrame {
             }
 
             // Tutti i controlli superati
-            String risposta = controller.creaTask(titolo, descrizione, dataDiScadenza, numeroMaxPunti, codiceClasse, emailDocente);
-            mostraMessaggio(risposta);
+            controller.creaTask(titolo, descrizione, dataDiScadenza, numeroMaxPunti, codiceClasse, emailDocente)
+                    .whenCompleteAsync((risposta, errore) -> mostraMessaggio(errore != null ? errore.getMessage() : risposta),
+                            SwingUtilities::invokeLater);
         });
     }
 
     /**
-     * Genera dinamicamente una tabella popolata con i dati provenienti da una lista di TaskDidatticoDAO.
+     * Genera dinamicamente una tabella popolata con i dati provenienti da una lista di intestazioni di task.
      * <p>
      * Ogni task verrà rappresentato come una riga nella tabella, con colonne per:
-     * Titolo, Descrizione, Scadenza e Punti Massimi assegnabili. La tabella risultante
+     * Titolo, Scadenza e Punti Massimi assegnabili. La tabella risultante
      * non è modificabile dall'utente.
      *
      * @param taskList lista di oggetti da visualizzare nella tabella
      * @param table1 la {@link JTable} da riempire con i dati
      */
-    static void generaTabellaDaListaTask(List<TaskDidatticoDTO> taskList, JTable table1) {
-        DefaultTableModel model = new DefaultTableModel(new Object[]{"Titolo", "Descrizione", "Scadenza", "Punti Max"}, 0) {
+    static void generaTabellaDaListaTask(List<IntestazioneTaskDTO> taskList, JTable table1) {
+        DefaultTableModel model = new DefaultTableModel(COLONNE_TASK, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
             }
         };
-        for (TaskDidatticoDTO task : taskList) {
-            model.addRow(new Object[]{task.getTitolo(), task.getDescrizione(), task.getDataDiScadenza(), task.getNumMaxDiPuntiAssegnabili()});
+        for (IntestazioneTaskDTO task : taskList) {
+            model.addRow(rigaTask(task));
         }
 
         table1.setModel(model);
@@ -269,30 +277,41 @@ public class BoundaryClasseVirtuale extends JFrame {
     }
 
     /**
-     * Genera dinamicamente una tabella con le informazioni degli studenti (nome, cognome, email).
-     * I dati sono passati come lista di StudenteDTO.
+     * Converte un task nei valori di una riga delle tabelle dei task.
      *
-     * <p>
-     * Ogni studente verrà rappresentato come una riga nella tabella, con colonne per:
-     * nome, cognome, email. La tabella risultante non è modificabile dall'utente.
-     * </p>
-     * @param studenti lista degli studenti da visualizzare.
-     * @param table    JTable da riempire con i dati degli studenti.
+     * @param task task da visualizzare
+     * @return titolo, scadenza e punti massimi
      */
-    static void generaTabellaStudenti(List<StudenteDTO> studenti, JTable table) {
-        DefaultTableModel model = new DefaultTableModel(new Object[]{"Nome", "Cognome", "Email"}, 0) {
+    private static Object[] rigaTask(IntestazioneTaskDTO task) {
+        return new Object[]{task.getTitolo(), task.getDataDiScadenza(), task.getNumMaxDiPuntiAssegnabili()};
+    }
+
+    /**
+     * Fa sì che un doppio clic su una riga di una tabella dei task mostri la descrizione del task,
+     * richiesta al Controller in quel momento perché le tabelle dei task non la contengono.
+     * Il titolo del task viene letto dalla prima colonna della riga selezionata.
+     *
+     * @param tabella tabella dei task
+     */
+    private static void mostraDescrizioneConDoppioClic(JTable tabella) {
+        tabella.addMouseListener(new MouseAdapter() {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+            public void mouseClicked(MouseEvent e) {
+                int selectedRow = tabella.getSelectedRow();
+                if (e.getClickCount() == 2 && selectedRow != -1) {
+                    String titolo = (String) tabella.getValueAt(selectedRow, 0);
+                    ControllerAsincrono.getInstance().ottieniDescrizioneTask(titolo).whenCompleteAsync((descrizione, errore) -> {
+                        if (errore != null) {
+                            JOptionPane.showMessageDialog(null, errore.getMessage());
+                        } else if (descrizione != null) {
+                            JOptionPane.showMessageDialog(null, descrizione, titolo, JOptionPane.INFORMATION_MESSAGE);
+                        } else {
+                            JOptionPane.showMessageDialog(null, "Errore nell ottenere la descrizione del task");
+                        }
+                    }, SwingUtilities::invokeLater);
+                }
             }
-        };
-
-        for (StudenteDTO s : studenti) {
-            model.addRow(new Object[]{s.getNome(), s.getCognome(), s.getEmail()});
-        }
-
-        table.setModel(model);
-        table.setAutoResizeMode(JTable.AUTO_RESIZE_ALL_COLUMNS);
+        });
     }
 
     /**
@@ -1,7 +1,7 @@
 package boundary;
 
 import dto.ClasseVirtualeDTO;
-import control.Controller;
+import control.ControllerAsincrono;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -21,7 +21,7 @@ import java.awt.*;
  * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
  */
 public class BoundaryDocente  extends JFrame {
-    Controller controller = Controller.getInstance();
+    ControllerAsincrono controller = ControllerAsincrono.getInstance();
 
     private JPanel mainPanel;
     private JScrollPane visualizzaElencoClassi;
@@ -76,19 +76,24 @@ public class BoundaryDocente  extends JFrame {
      * @param emailDocente email del docente per filtrare le classi associate.
      */
     private void mostraClassiAssociate(String emailDocente){
-        java.util.List<ClasseVirtualeDTO> classeList = controller.ottieniClassiDelDocente(emailDocente);
-        DefaultTableModel model = new DefaultTableModel(new Object[]{"CodiceUnivoco", "Nome"}, 0){
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+        controller.ottieniClassiDelDocente(emailDocente).whenCompleteAsync((classeList, errore) -> {
+            if (errore != null) {
+                JOptionPane.showMessageDialog(null, errore.getMessage());
+                return;
+            }
+            DefaultTableModel model = new DefaultTableModel(new Object[]{"CodiceUnivoco", "Nome"}, 0){
+                @Override
+                public boolean isCellEditable(int row, int column) {
+                    return false;
+                }
+            };
+            for (ClasseVirtualeDTO classe : classeList) {
+                model.addRow(new Object[]{classe.getCodiceUnivoco(), classe.getNome()});
             }
-        };
-        for (ClasseVirtualeDTO classe : classeList) {
-            model.addRow(new Object[]{classe.getCodiceUnivoco(), classe.getNome()});
-        }
 
-        table1.setModel(model);
-        table1.setAutoResizeMode(JTable.AUTO_RESIZE_ALL_COLUMNS);
-        table1.setFillsViewportHeight(true);
+            table1.setModel(model);
+            table1.setAutoResizeMode(JTable.AUTO_RESIZE_ALL_COLUMNS);
+            table1.setFillsViewportHeight(true);
+        }, SwingUtilities::invokeLater);
     }
 }
@@ -2,7 +2,8 @@ package boundary;
 
 import javax.swing.*;
 import java.awt.*;
-import control.Controller;
+import control.ControllerAsincrono;
+import database.DatabaseNonDisponibileException;
 
 /**
  * Questa classe rappresenta l'interfaccia grafica principale della piattaforma digitale.
@@ -24,7 +25,7 @@ import control.Controller;
  * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
  */
 public class BoundaryPiattaformaDigitale extends JFrame {
-    Controller controller = Controller.getInstance();
+    ControllerAsincrono controller = ControllerAsincrono.getInstance();
     //COSTANTI
     private static final String STUDENTE = "Studente";
     private static final String DOCENTE = "Docente";
@@ -110,11 +111,11 @@ public class BoundaryPiattaformaDigitale extends JFrame {
                 mostraMessaggio("L'email deve essere del tipo nome@" +
                                 (ruolo.equals(DOCENTE) ? "docente.it" : "studente.it"));
             }else if (ruolo.equals(STUDENTE)) {
-                String risposta = controller.registraStudente(nome, cognome, email, password);
-                mostraMessaggio(risposta);
+                controller.registraStudente(nome, cognome, email, password)
+                        .whenCompleteAsync(this::mostraEsito, SwingUtilities::invokeLater);
             }else {
-                String risposta = controller.registraDocente(nome, cognome, email, password);
-                mostraMessaggio(risposta);
+                controller.registraDocente(nome, cognome, email, password)
+                        .whenCompleteAsync(this::mostraEsito, SwingUtilities::invokeLater);
             }
         });
     }
@@ -174,13 +175,14 @@ public class BoundaryPiattaformaDigitale extends JFrame {
      * @param password password dello studente
      */
     private void gestisciAccessoStudente(String email, String password) {
-        String risposta = controller.accessoAlProfiloPersonale(email, password);
-        mostraMessaggio(risposta);
+        controller.accessoAlProfiloPersonale(email, password).whenCompleteAsync((risposta, errore) -> {
+            mostraEsito(risposta, errore);
 
-        if (risposta.equals("Accesso Effettuato con successo e Badge assegnati")) {
-            new BoundaryProfiloPersonale(email);
-            chiudiFinestraCorrente();
-        }
+            if (errore == null && risposta.equals("Accesso Effettuato con successo e Badge assegnati")) {
+                new BoundaryProfiloPersonale(email);
+                chiudiFinestraCorrente();
+            }
+        }, SwingUtilities::invokeLater);
     }
 
     /**
@@ -191,13 +193,14 @@ public class BoundaryPiattaformaDigitale extends JFrame {
      * @param password password del docente
      */
     private void gestisciAccessoDocente(String email, String password) {
-        String risposta = controller.accessoAlleClassiVirtuali(email, password);
-        mostraMessaggio(risposta);
+        controller.accessoAlleClassiVirtuali(email, password).whenCompleteAsync((risposta, errore) -> {
+            mostraEsito(risposta, errore);
 
-        if (risposta.equals("Accesso Effettuato con successo")) {
-            new BoundaryDocente(email);
-            chiudiFinestraCorrente();
-        }
+            if (errore == null && risposta.equals("Accesso Effettuato con successo")) {
+                new BoundaryDocente(email);
+                chiudiFinestraCorrente();
+            }
+        }, SwingUtilities::invokeLater);
     }
 
     /**
@@ -219,6 +222,16 @@ public class BoundaryPiattaformaDigitale extends JFrame {
         JOptionPane.showMessageDialog(null, messaggio);
     }
 
+    /**
+     * Mostra la risposta di un'operazione asincrona del Controller, oppure il messaggio dell'errore che l'ha interrotta.
+     *
+     * @param risposta messaggio restituito dal Controller
+     * @param errore   errore sollevato durante l'operazione, null se è terminata correttamente
+     */
+    private void mostraEsito(String risposta, Throwable errore) {
+        mostraMessaggio(errore != null ? errore.getMessage() : risposta);
+    }
+
     /**
      * Esegue i controlli sui campi di registrazione (nome, cognome, password).
      * Ogni campo deve essere compreso tra 3 e 30 caratteri.
@@ -256,8 +269,14 @@ public class BoundaryPiattaformaDigitale extends JFrame {
      * @param args argomenti da linea di comando (non utilizzati)
      */
     public static void main(String[] args) {
-        //Crea nuovo oggetto
-        BoundaryPiattaformaDigitale piattaforma = new BoundaryPiattaformaDigitale();
+        //Crea nuovo oggetto, caricando docenti e studenti iscritti dal database
+        BoundaryPiattaformaDigitale piattaforma;
+        try {
+            piattaforma = new BoundaryPiattaformaDigitale();
+        } catch (DatabaseNonDisponibileException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage());
+            return;
+        }
         //Imposta il panello principale come contenuto della finestra
         piattaforma.setContentPane(piattaforma.getMainPanel());
         piattaforma.setVisible(true);
@@ -1,12 +1,12 @@
 package boundary;
 
-import control.Controller;
-import dto.TaskDidatticoDTO;
+import control.ControllerAsincrono;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
-import java.util.List;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 
 /**
  * Questa classe rappresenta l'interfaccia grafica del profilo personale di uno studente.
@@ -19,7 +19,8 @@ import java.util.List;
  * Il layout utilizzato è un CardLayout che permette di cambiare pannello in base alle azioni dell'utente.
  * <p>
  * Funzionalità principali:
- * - Visualizzazione dei task assegnati con dettagli: Titolo, Descrizione, Scadenza, Punti Max.
+ * - Visualizzazione dei task assegnati con dettagli: Titolo, Scadenza, Punti Max; un doppio clic mostra la descrizione
+ *   del task e permette di consegnarlo.
  * - Tabella non modificabile che mostra i dati ottenuti dal Controller.
  * - Navigazione tra pannelli tramite pulsanti.
  * - Supporto alla chiusura e inizializzazione della finestra principale.
@@ -30,7 +31,7 @@ import java.util.List;
  */
 public class BoundaryProfiloPersonale extends JFrame {
     //COSTANTE
-    Controller controller = Controller.getInstance();
+    ControllerAsincrono controller = ControllerAsincrono.getInstance();
     private static final String NONIMPLEMENTATO ="Funzione non Implementata";
     //Panel
     private JPanel mainPanel;
@@ -78,6 +79,7 @@ public class BoundaryProfiloPersonale extends JFrame {
         taskCompletatiButton.addActionListener(_ ->mostraMessaggio(NONIMPLEMENTATO));
         statisticheButton.addActionListener(_ -> mostraMessaggio(NONIMPLEMENTATO));
         badgeOttenutiButton.addActionListener(_ -> mostraMessaggio(NONIMPLEMENTATO));
+        gestioneConsegnaTask(emailStudente);
 
         ActionListener tornaAlProfiloListener = _ -> {
             CardLayout cl = (CardLayout) mainPanel.getLayout();
@@ -92,19 +94,53 @@ public class BoundaryProfiloPersonale extends JFrame {
 
     /**
      * Recupera dal controller i task assegnati allo studente identificato dall'email
-     * e li visualizza nella tabella. Ogni riga mostra titolo, descrizione, data di scadenza e punti massimi.
+     * e li visualizza nella tabella. Ogni riga mostra titolo, data di scadenza e punti massimi.
      * <p>
      * La tabella è non modificabile e si adatta alla larghezza dei contenuti.
      *
      * @param emailStudente l'indirizzo email dello studente.
      */
     private void mostraTaskAssegnati(String emailStudente) {
-        List<TaskDidatticoDTO> taskList = controller.ottieniTaskAssegnatiStudente(emailStudente);
-        if (taskList!= null) {
-            BoundaryClasseVirtuale.generaTabellaDaListaTask(taskList, taskAssegnati);
-        }else{
-            mostraMessaggio("Errore nell ottenere la lista dei task");
-        }
+        controller.ottieniTaskAssegnatiStudente(emailStudente).whenCompleteAsync((taskList, errore) -> {
+            if (errore != null) {
+                mostraMessaggio(errore.getMessage());
+            } else if (taskList!= null) {
+                BoundaryClasseVirtuale.generaTabellaDaListaTask(taskList, taskAssegnati);
+            }else{
+                mostraMessaggio("Errore nell ottenere la lista dei task");
+            }
+        }, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Fa sì che un doppio clic su un task assegnato ne mostri la descrizione, richiesta al Controller,
+     * e chieda allo studente se vuole consegnarlo. Dopo la consegna la tabella dei task assegnati viene aggiornata.
+     *
+     * @param emailStudente l'indirizzo email dello studente.
+     */
+    private void gestioneConsegnaTask(String emailStudente) {
+        taskAssegnati.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int selectedRow = taskAssegnati.getSelectedRow();
+                if (e.getClickCount() == 2 && selectedRow != -1) {
+                    String titolo = (String) taskAssegnati.getValueAt(selectedRow, 0);
+                    controller.ottieniDescrizioneTask(titolo).whenCompleteAsync((descrizione, errore) -> {
+                        if (errore != null) {
+                            mostraMessaggio(errore.getMessage());
+                            return;
+                        }
+                        String testo = (descrizione != null ? descrizione : "Descrizione non disponibile") + "\n\nVuoi consegnare questo task?";
+                        if (JOptionPane.showConfirmDialog(null, testo, titolo, JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
+                            controller.consegnaTask(emailStudente, titolo).whenCompleteAsync((risposta, erroreConsegna) -> {
+                                mostraMessaggio(erroreConsegna != null ? erroreConsegna.getMessage() : risposta);
+                                mostraTaskAssegnati(emailStudente);
+                            }, SwingUtilities::invokeLater);
+                        }
+                    }, SwingUtilities::invokeLater);
+                }
+            }
+        });
     }
 
     /**
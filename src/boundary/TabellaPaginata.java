@@ -0,0 +1,134 @@
+package boundary;
+
+import dto.PaginaDTO;
+
+import javax.swing.*;
+import javax.swing.event.ChangeListener;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Collega una {@link JTable} a un elenco letto a pagine tramite il Controller.
+ * <p>
+ * Viene richiesta subito la prima pagina; le successive vengono richieste quando l'utente scorre la tabella
+ * fino alle ultime righe, oppure finché le righe caricate non riempiono l'area visibile. Ogni pagina riparte
+ * dal cursore della precedente, quindi scorrere in fondo a un elenco lungo non rallenta le richieste.
+ * <p>
+ * Tutti i metodi vanno invocati sul thread grafico, su cui vengono anche aggiunte le righe ricevute.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ *
+ * @param <T> tipo degli elementi mostrati nella tabella
+ */
+class TabellaPaginata<T> {
+    //righe richieste al Controller con ogni pagina
+    static final int DIMENSIONE_PAGINA = 50;
+
+    /**
+     * Richiesta di una pagina al Controller.
+     *
+     * @param <T> tipo degli elementi della pagina
+     */
+    @FunctionalInterface
+    interface Sorgente<T> {
+        /**
+         * @param cursore          cursore della pagina precedente, {@code null} per la prima pagina
+         * @param dimensionePagina numero massimo di elementi della pagina
+         * @return pagina richiesta, che si completa con {@code null} se la lettura non è riuscita
+         */
+        CompletableFuture<PaginaDTO<T>> pagina(String cursore, int dimensionePagina);
+    }
+
+    private final JTable tabella;
+    private final DefaultTableModel modello;
+    private final Sorgente<T> sorgente;
+    private final Function<T, Object[]> riga;
+    private final Consumer<String> mostraErrore;
+
+    private String cursore;
+    private boolean ultima;
+    private boolean inCaricamento;
+
+    /**
+     * Sostituisce il modello della tabella con uno vuoto e ne richiede la prima pagina.
+     *
+     * @param tabella      tabella da riempire
+     * @param colonne      intestazioni delle colonne
+     * @param sorgente     richiesta di una pagina al Controller
+     * @param riga         conversione di un elemento nei valori di una riga
+     * @param mostraErrore mostra all'utente il messaggio di un errore di caricamento
+     */
+    TabellaPaginata(JTable tabella, Object[] colonne, Sorgente<T> sorgente, Function<T, Object[]> riga, Consumer<String> mostraErrore) {
+        this.tabella = tabella;
+        this.sorgente = sorgente;
+        this.riga = riga;
+        this.mostraErrore = mostraErrore;
+        this.modello = new DefaultTableModel(colonne, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        tabella.setModel(modello);
+        tabella.setAutoResizeMode(JTable.AUTO_RESIZE_ALL_COLUMNS);
+        tabella.setFillsViewportHeight(true);
+
+        Container contenitore = tabella.getParent();
+        if (contenitore instanceof JViewport viewport) {
+            //una tabella collegata a un nuovo elenco smette di ascoltare lo scorrimento per quello precedente
+            if (tabella.getClientProperty(TabellaPaginata.class) instanceof ChangeListener precedente) {
+                viewport.removeChangeListener(precedente);
+            }
+            ChangeListener scorrimento = _ -> caricaSeNecessario();
+            viewport.addChangeListener(scorrimento);
+            tabella.putClientProperty(TabellaPaginata.class, scorrimento);
+        }
+        caricaPagina();
+    }
+
+    /**
+     * Richiede la pagina successiva se le righe caricate non arrivano oltre l'area visibile della tabella.
+     */
+    private void caricaSeNecessario() {
+        if (ultima || inCaricamento) {
+            return;
+        }
+        Rectangle visibile = tabella.getVisibleRect();
+        int righeVisibili = Math.max(1, visibile.height / Math.max(1, tabella.getRowHeight()));
+        int ultimaRigaVisibile = tabella.rowAtPoint(new Point(0, visibile.y + visibile.height - 1));
+        if (ultimaRigaVisibile == -1 || ultimaRigaVisibile >= modello.getRowCount() - righeVisibili) {
+            caricaPagina();
+        }
+    }
+
+    /**
+     * Richiede al Controller la pagina successiva e ne aggiunge le righe alla tabella.
+     */
+    private void caricaPagina() {
+        inCaricamento = true;
+        sorgente.pagina(cursore, DIMENSIONE_PAGINA).whenCompleteAsync((pagina, errore) -> {
+            inCaricamento = false;
+            if (errore != null) {
+                ultima = true;
+                mostraErrore.accept(errore.getMessage());
+                return;
+            }
+            if (pagina == null) {
+                ultima = true;
+                mostraErrore.accept("Errore nel caricamento dell'elenco dal database");
+                return;
+            }
+            for (T elemento : pagina.getElementi()) {
+                modello.addRow(riga.apply(elemento));
+            }
+            cursore = pagina.getCursoreSuccessivo();
+            ultima = pagina.isUltima();
+            if (tabella.getModel() == modello) {
+                caricaSeNecessario();
+            }
+        }, SwingUtilities::invokeLater);
+    }
+}
@@ -1,12 +1,19 @@
 package control;
+import database.DBManager;
+import database.DatabaseNonDisponibileException;
 import dto.ClasseVirtualeDTO;
+import dto.IntestazioneTaskDTO;
+import dto.PaginaDTO;
+import dto.RegistrazioneStudenteDTO;
 import dto.StudenteDTO;
-import dto.TaskDidatticoDTO;
 import entity.*;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  *  La classe {@code Controller} agisce da intermediario tra l'interfaccia utente (Boundary) e la logica applicativa (Entity).
@@ -26,12 +33,33 @@ import java.util.List;
  * Tutte le entità vengono interrogate tramite oggetti {@code Entity}, mentre i dati in uscita vengono trasferiti
  * alla boundary usando oggetti {@code DTO} (Data Transfer Object) per evitare esposizione diretta del modello.
  * <p>
+ * Il Controller può essere usato contemporaneamente da più thread, ad esempio da più utenti serviti in parallelo.
+ * Gli elenchi di studenti e docenti vengono letti senza lock; le operazioni che modificano lo stato in memoria
+ * di un utente vengono eseguite tenendo il lock del suo indirizzo email (vedi {@link LockPerUtente}),
+ * così che le operazioni su utenti diversi procedano in parallelo.
+ * <p>
+ * Quando il database non è raggiungibile, i metodi che restituiscono un messaggio restituiscono quello
+ * della {@link DatabaseNonDisponibileException}; i metodi che restituiscono liste la lasciano propagare
+ * alla boundary, che ne mostra il messaggio.
+ * <p>
  *
  * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
  */
 public class Controller {
     private final EntityPiattaformaDigitale piattaformaDigitale = EntityPiattaformaDigitale.getInstance();
-    private static Controller singletonController = null;
+    //volatile: l'istanza viene pubblicata agli altri thread solo dopo che il costruttore è terminato
+    private static volatile Controller singletonController = null;
+    //numero di strisce di lockUtenti
+    public static int strisceLockUtenti = 64;
+    private final LockPerUtente lockUtenti = new LockPerUtente(strisceLockUtenti);
+    //Badge assegnati automaticamente e relativi requisiti
+    private static final String OTTIMO_INIZIO = "Ottimo Inizio";
+    private static final String MACINATORE_DI_TASK = "Macinatore di Task";
+    private static final String ESPERTO_TOTALE = "Esperto Totale";
+    private static final int PUNTI_OTTIMO_INIZIO = 100;
+    private static final int TASK_MACINATORE_DI_TASK = 10;
+    private static final int PUNTI_ESPERTO_TOTALE = 200;
+    private static final int TASK_ESPERTO_TOTALE = 20;
 
     /**
      * Costruttore privato della classe {@code Controller}, utilizzato per implementare il pattern Singleton.
@@ -47,24 +75,35 @@ public class Controller {
     private Controller() {
 
         piattaformaDigitale.setDocentiIscritti(piattaformaDigitale.getDocentiIscritti());
-        piattaformaDigitale.setStudentiIscritti(piattaformaDigitale.getStudentiIscritti());
+        piattaformaDigitale.caricaStudentiIscritti();
 
     }
 
     /**
-     * Restituisce l'istanza singleton del Controller.
+     * Restituisce l'istanza singleton del Controller, creandola alla prima invocazione.
+     * La creazione avviene una sola volta anche se più thread invocano il metodo insieme; una volta creata,
+     * l'istanza viene restituita senza lock. Se la creazione fallisce, verrà ritentata alla prossima invocazione.
      *
      * @return l'unica istanza di {@code Controller}
      */
     public static Controller getInstance() {
-        if (singletonController == null) {
-            singletonController = new Controller();
+        Controller istanza = singletonController;
+        if (istanza == null) {
+            synchronized (Controller.class) {
+                istanza = singletonController;
+                if (istanza == null) {
+                    istanza = new Controller();
+                    singletonController = istanza;
+                }
+            }
         }
-        return singletonController;
+        return istanza;
     }
 
     /**
      * Registra un nuovo studente nel sistema e crea automaticamente il relativo profilo personale.
+     * Lo studente e il profilo vengono scritti in un'unica transazione: se la creazione del profilo
+     * fallisce, anche la registrazione dello studente viene annullata.
      *
      * @param nome      Nome dello studente
      * @param cognome   Cognome dello studente
@@ -73,17 +112,87 @@ public class Controller {
      * @return Messaggio di successo o errore relativo all'operazione
      */
     public  String registraStudente(String nome, String cognome, String email, String password) {
-        int result = piattaformaDigitale.registraStudente(nome, cognome, email, password);
+        //indica se lo studente è già stato aggiunto all'elenco in memoria della piattaforma
+        AtomicBoolean registrato = new AtomicBoolean(false);
+        ReentrantLock lock = lockUtenti.get(email);
+        lock.lock();
+        try {
+            return DBManager.eseguiInTransazione(() -> {
+                int result = piattaformaDigitale.registraStudente(nome, cognome, email, password);
 
-        if (result == -1) {
+                if (result == -1) {
+                    return "Non è stato possibile registrare lo studente, prova con un altra email!";
+                }else {
+                    registrato.set(true);
+                    EntityStudente studente = piattaformaDigitale.getStudenteByEmail(email);
+                    int success = studente.creaProfiloPersonale();
+                    if (success == 1) {
+                        return "Lo studente è stato inserito con successo ";
+                    }
+                    DBManager.segnaPerRollback();
+                    piattaformaDigitale.rimuoviStudente(email);
+                    return "Non è stato possibile associare un profiloPersonale";
+                }
+            });
+        } catch (ClassNotFoundException | SQLException e) {
+            e.printStackTrace();
+            if (registrato.get()) {
+                piattaformaDigitale.rimuoviStudente(email);
+            }
             return "Non è stato possibile registrare lo studente, prova con un altra email!";
-        }else {
-            EntityStudente studente = piattaformaDigitale.getStudenteByEmail(email);
-            int success = studente.creaProfiloPersonale();
-            if (success == 1) {
-                return "Lo studente è stato inserito con successo ";
+        } catch (DatabaseNonDisponibileException e) {
+            if (registrato.get()) {
+                piattaformaDigitale.rimuoviStudente(email);
             }
-            return "Non è stato possibile associare un profiloPersonale";
+            return e.getMessage();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registra più studenti con una scrittura in blocco, ad esempio per importare gli iscritti di un istituto,
+     * e crea i relativi profili personali.
+     * Studenti e profili vengono scritti in un'unica transazione: se un inserimento fallisce,
+     * ad esempio per un'email già registrata, nessuno studente viene registrato.
+     * I dati devono essere già stati validati come per la registrazione del singolo studente.
+     *
+     * @param studenti dati degli studenti da registrare
+     * @return Messaggio di successo o errore relativo all'operazione
+     */
+    public String registraStudenti(List<RegistrazioneStudenteDTO> studenti) {
+        List<EntityStudente> nuoviStudenti = new ArrayList<>(studenti.size());
+        for (RegistrazioneStudenteDTO dati : studenti) {
+            EntityStudente studente = new EntityStudente();
+            studente.setNome(dati.getNome());
+            studente.setCognome(dati.getCognome());
+            studente.setEmail(dati.getEmail());
+            studente.setPassword(dati.getPassword());
+            nuoviStudenti.add(studente);
+        }
+        //indica se gli studenti sono già stati aggiunti all'elenco in memoria della piattaforma
+        AtomicBoolean registrati = new AtomicBoolean(false);
+        try {
+            return DBManager.eseguiInTransazione(() -> {
+                int result = piattaformaDigitale.registraStudenti(nuoviStudenti);
+                if (result == -1) {
+                    DBManager.segnaPerRollback();
+                    return "Non è stato possibile registrare gli studenti, controlla che nessuna email sia già registrata!";
+                }
+                registrati.set(true);
+                return "Sono stati inseriti con successo " + result + " studenti";
+            });
+        } catch (ClassNotFoundException | SQLException e) {
+            e.printStackTrace();
+            if (registrati.get()) {
+                nuoviStudenti.forEach(studente -> piattaformaDigitale.rimuoviStudente(studente.getEmail()));
+            }
+            return "Non è stato possibile registrare gli studenti, controlla che nessuna email sia già registrata!";
+        } catch (DatabaseNonDisponibileException e) {
+            if (registrati.get()) {
+                nuoviStudenti.forEach(studente -> piattaformaDigitale.rimuoviStudente(studente.getEmail()));
+            }
+            return e.getMessage();
         }
     }
 
@@ -97,7 +206,12 @@ public class Controller {
      * @return Messaggio di successo o errore
      */
     public  String registraDocente(String nome, String cognome, String email, String password) {
-        int result = piattaformaDigitale.registraDocente(nome, cognome, email, password);
+        int result;
+        try {
+            result = piattaformaDigitale.registraDocente(nome, cognome, email, password);
+        } catch (DatabaseNonDisponibileException e) {
+            return e.getMessage();
+        }
         if (result == -1) {
             return "Non è stato possibile registrare il docente";
         }else {
@@ -117,33 +231,52 @@ public class Controller {
      *         - "Errore nell'assegnazione del Badge" se l'accesso è riuscito ma l’assegnazione dei badge ha fallito
      *         - "Password Incorretta" se la password non è valida
      *         - "Errore Utente non trovato" se l'email non è presente nel sistema
+     *         - il messaggio della {@link DatabaseNonDisponibileException} se il database non è raggiungibile
      */
     public  String accessoAlProfiloPersonale(String email , String password) {
-        EntityStudente studente = piattaformaDigitale.accessoAlProfiloPersonale(email);
-        if (studente != null) {
-                if (password.equals(studente.getPassword())) {
-                    int esitoProfilo = studente.recuperaProfiloPersonale();
-                    int risultato = assegnazioneAutomaticaBadge(esitoProfilo, studente.getProfiloPersonale());
-                    if (risultato == -1) {
-                        return "Errore nell'assegnazione del Badge";
+        ReentrantLock lock = lockUtenti.get(email);
+        lock.lock();
+        try {
+            EntityStudente studente = piattaformaDigitale.accessoAlProfiloPersonale(email);
+            if (studente != null) {
+                    if (password.equals(studente.getPassword())) {
+                        //usato solo per scegliere i profili da caricare all'avvio: un errore non impedisce l'accesso
+                        try {
+                            studente.registraAccesso();
+                        } catch (DatabaseNonDisponibileException e) {
+                            //il profilo viene comunque richiesto, e un database non raggiungibile viene segnalato da lì
+                        }
+                        int risultato;
+                        try {
+                            int esitoProfilo = studente.recuperaProfiloPersonale();
+                            risultato = assegnazioneAutomaticaBadge(esitoProfilo, studente.getProfiloPersonale());
+                        } catch (DatabaseNonDisponibileException e) {
+                            return e.getMessage();
+                        }
+                        if (risultato == -1) {
+                            return "Errore nell'assegnazione del Badge";
+                        }
+                        return "Accesso Effettuato con successo e Badge assegnati";
                     }
-                    return "Accesso Effettuato con successo e Badge assegnati";
+                    return "Password Incorretta";
                 }
-                return "Password Incorretta";
-            }
-        return "Errore Utente non trovato";
+            return "Errore Utente non trovato";
+        } finally {
+            lock.unlock();
+        }
     }
     
     /**
      * Esegue l'assegnazione automatica dei badge allo studente in base ai dati del profilo personale.
-     * I badge vengono assegnati solo se soddisfano i criteri e non sono già stati assegnati.
+     * I badge vengono assegnati solo se soddisfano i criteri e non sono già stati assegnati,
+     * tutti insieme con un'unica operazione atomica.
      * <p>
      * I criteri di assegnazione sono:
      * - "Ottimo Inizio" se lo studente ha almeno 100 punti
      * - "Macinatore di Task" se ha completato almeno 10 task
      * - "Esperto Totale" se ha almeno 200 punti e ha completato almeno 20 task
      *
-     * @param esito Esito del caricamento del profilo personale dal database (deve essere 1 per continuare)
+     * @param esito Esito del caricamento del profilo personale dal database, o della consegna di un task (deve essere 1 per continuare)
      * @param profiloPersonale Oggetto {@code EntityProfiloPersonale} contenente i dati aggiornati dello studente
      * @return {@code 1} se tutti i badge sono stati assegnati correttamente o erano già presenti,
      *         {@code 0} se i badge erano già presenti e nessuno è stato assegnato,
@@ -152,33 +285,55 @@ public class Controller {
      */
     private int assegnazioneAutomaticaBadge(int esito, EntityProfiloPersonale profiloPersonale) {
         if (esito == 1) {
-            int esito1 = 1;
-            int esito2 = 1;
-            int esito3 = 1;
             int punti = profiloPersonale.getTotalePuntiOttenuti();
             int task = profiloPersonale.getNumeroTaskSvolti();
-            // Badge da assegnare (puoi metterli fissi o leggerli da DAO)
-            if (punti >= 100) {
-
-                esito1 = profiloPersonale.assegnaBadgeSeNonPresente("Ottimo Inizio");
+            List<String> badgeIdonei = new ArrayList<>();
+            if (punti >= PUNTI_OTTIMO_INIZIO) {
+                badgeIdonei.add(OTTIMO_INIZIO);
             }
-
-            if (task >= 10){
-
-                esito2 = profiloPersonale.assegnaBadgeSeNonPresente("Macinatore di Task");
+            if (task >= TASK_MACINATORE_DI_TASK){
+                badgeIdonei.add(MACINATORE_DI_TASK);
             }
-            if (punti >= 200 && task >= 20) {
-
-                esito3 = profiloPersonale.assegnaBadgeSeNonPresente("Esperto Totale");
+            if (punti >= PUNTI_ESPERTO_TOTALE && task >= TASK_ESPERTO_TOTALE) {
+                badgeIdonei.add(ESPERTO_TOTALE);
             }
 
-            if (esito1 == -1 || esito2 == -1 || esito3 == -1 ) return -1;
-            else if (esito1 == 0 || esito2 == 0 || esito3 == 0 ) return 0;
+            List<String> assegnati = profiloPersonale.assegnaBadgeSeNonPresenti(badgeIdonei);
+            if (assegnati == null) return -1;
+            else if (assegnati.size() < badgeIdonei.size()) return 0;
             else return 1;
         }
         return esito;
     }
 
+    /**
+     * Assegna i badge automatici a tutti i profili personali che ne soddisfano i requisiti
+     * ma non li hanno ancora ottenuti, con una scrittura in blocco per ogni badge.
+     * Serve a recuperare i badge dei profili esistenti, che altrimenti li riceverebbero solo al login successivo.
+     * Tutte le assegnazioni avvengono in un'unica transazione.
+     *
+     * @return Messaggio con il numero di badge assegnati, oppure di errore
+     */
+    public String assegnaBadgeMancanti() {
+        try {
+            return DBManager.eseguiInTransazione(() -> {
+                int esito1 = new EntityBadge(OTTIMO_INIZIO).assegnaAiProfiliIdonei(PUNTI_OTTIMO_INIZIO, 0);
+                int esito2 = new EntityBadge(MACINATORE_DI_TASK).assegnaAiProfiliIdonei(0, TASK_MACINATORE_DI_TASK);
+                int esito3 = new EntityBadge(ESPERTO_TOTALE).assegnaAiProfiliIdonei(PUNTI_ESPERTO_TOTALE, TASK_ESPERTO_TOTALE);
+                if (esito1 == -1 || esito2 == -1 || esito3 == -1) {
+                    DBManager.segnaPerRollback();
+                    return "Errore nell'assegnazione del Badge";
+                }
+                return "Badge assegnati: " + (esito1 + esito2 + esito3);
+            });
+        } catch (ClassNotFoundException | SQLException e) {
+            e.printStackTrace();
+            return "Errore nell'assegnazione del Badge";
+        } catch (DatabaseNonDisponibileException e) {
+            return e.getMessage();
+        }
+    }
+
     /**
      * Tenta l’accesso alla sezione delle classi virtuali per un docente.
      *
@@ -187,17 +342,22 @@ public class Controller {
      * @return Messaggio di esito dell’autenticazione
      */
     public  String accessoAlleClassiVirtuali(String email , String password) {
+        ReentrantLock lock = lockUtenti.get(email);
+        lock.lock();
+        try {
+            EntityDocente docente = piattaformaDigitale.accessoAlleClassiVirtuali(email);
+            if (docente != null) {
+                if (password.equals(docente.getPassword())) {
 
-        EntityDocente docente = piattaformaDigitale.accessoAlleClassiVirtuali(email);
-        if (docente != null) {
-            if (password.equals(docente.getPassword())) {
-
-                return "Accesso Effettuato con successo";
-            }else{
-                return "Password Incorretta";
+                    return "Accesso Effettuato con successo";
+                }else{
+                    return "Password Incorretta";
+                }
             }
+            return "Errore Utente non trovato";
+        } finally {
+            lock.unlock();
         }
-        return "Errore Utente non trovato";
     }
 
     /**
@@ -205,26 +365,84 @@ public class Controller {
      *
      * @param emailStudente Email dello studente
      * @return Lista di task non ancora completati
+     * @throws DatabaseNonDisponibileException se il database non è raggiungibile
+     */
+    public  List<IntestazioneTaskDTO> ottieniTaskAssegnatiStudente(String emailStudente) {
+        ReentrantLock lock = lockUtenti.get(emailStudente);
+        lock.lock();
+        try {
+            EntityStudente studenteAttuale = piattaformaDigitale.getStudenteByEmail(emailStudente);
+            return studenteAttuale.getProfiloPersonale().ottieniTaskAssegnati();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Restituisce la descrizione di un task, che gli elenchi dei task non contengono.
+     * Viene letta dal database solo quando l'utente chiede di visualizzarla.
+     *
+     * @param titolo titolo del task
+     * @return descrizione del task, {@code null} se il task non esiste o in caso di errore
+     * @throws DatabaseNonDisponibileException se il database non è raggiungibile
      */
-    public  List<TaskDidatticoDTO> ottieniTaskAssegnatiStudente(String emailStudente) {
-        EntityStudente studenteAttuale = piattaformaDigitale.getStudenteByEmail(emailStudente);
-        return studenteAttuale.getProfiloPersonale().ottieniTaskAssegnati();
+    public String ottieniDescrizioneTask(String titolo) {
+        EntityTaskDidattico task = new EntityTaskDidattico();
+        task.setTitolo(titolo);
+        return task.getDescrizione();
     }
 
     /**
-     * Restituisce la lista dei task attualmente assegnati da una classe.
+     * Consegna un task assegnato allo studente. Lo stato dell'attività e i contatori del profilo personale
+     * (punti ottenuti e task svolti) vengono aggiornati insieme in un'unica transazione; con i contatori aggiornati
+     * viene poi eseguita l'assegnazione automatica dei badge.
      *
-     * @param codiceClasse Codice identificativo della classe virtuale
-     * @return Lista di task assegnati alla classe
+     * @param emailStudente Email dello studente
+     * @param titolo        Titolo del task da consegnare
+     * @return Messaggio che indica l'esito della consegna
      */
-    public  List<TaskDidatticoDTO> ottieniTaskAssegnatiClasse(String codiceClasse, String emailDocente){
-        EntityClasseVirtuale classeVirtuale = impostaTaskClasseAttuale(codiceClasse, emailDocente);
-        List<EntityTaskDidattico> taskListAssegnati = classeVirtuale.getTaskAssegnati();
-        List<TaskDidatticoDTO> dtoList = new ArrayList<>();
-        for (EntityTaskDidattico task : taskListAssegnati) {
-            dtoList.add(new TaskDidatticoDTO(task.getTitolo(), task.getDescrizione(), task.getDataDiScadenza(), task.getNumMaxDiPuntiAssegnabili()));
+    public  String consegnaTask(String emailStudente, String titolo) {
+        ReentrantLock lock = lockUtenti.get(emailStudente);
+        lock.lock();
+        try {
+            EntityStudente studenteAttuale = piattaformaDigitale.getStudenteByEmail(emailStudente);
+            if (studenteAttuale == null) {
+                return "Errore Utente non trovato";
+            }
+            try {
+                EntityProfiloPersonale profiloPersonale = studenteAttuale.getProfiloPersonale();
+                int esito = profiloPersonale.consegnaTask(titolo);
+                if (esito == 0) {
+                    return "Task non trovato o già consegnato";
+                } else if (esito == -1) {
+                    return "Errore nella consegna del task";
+                }
+                if (assegnazioneAutomaticaBadge(esito, profiloPersonale) == -1) {
+                    return "Task consegnato, ma errore nell'assegnazione del Badge";
+                }
+                return "Task consegnato con successo";
+            } catch (DatabaseNonDisponibileException e) {
+                return e.getMessage();
+            }
+        } finally {
+            lock.unlock();
         }
-        return dtoList;
+    }
+
+    /**
+     * Restituisce una pagina dei task attualmente assegnati da una classe, ordinati per titolo.
+     *
+     * @param codiceClasse     Codice identificativo della classe virtuale
+     * @param emailDocente     Email del docente proprietario della classe
+     * @param cursore          cursore restituito con la pagina precedente, {@code null} per la prima pagina
+     * @param dimensionePagina numero massimo di task della pagina
+     * @return Pagina di task assegnati alla classe, oppure {@code null} in caso di errore nella lettura
+     * @throws DatabaseNonDisponibileException se il database non è raggiungibile
+     */
+    public  PaginaDTO<IntestazioneTaskDTO> ottieniTaskAssegnatiClasse(String codiceClasse, String emailDocente, String cursore, int dimensionePagina){
+        EntityDocente docenteAttuale = piattaformaDigitale.getDocenteByEmail(emailDocente);
+        EntityClasseVirtuale classeVirtuale = docenteAttuale.getClasseByCodiceUnivoco(codiceClasse);
+        return classeVirtuale.getPaginaTaskAssegnati(cursore, dimensionePagina);
     }
 
     /**
@@ -232,21 +450,30 @@ public class Controller {
      *
      * @param emailDocente Email del docente
      * @return Lista delle classi virtuali gestite
+     * @throws DatabaseNonDisponibileException se il database non è raggiungibile
      */
     public  List<ClasseVirtualeDTO> ottieniClassiDelDocente(String emailDocente) {
-        EntityDocente docenteAttuale =  piattaformaDigitale.getDocenteByEmail(emailDocente);
-        docenteAttuale.setListaClassi(docenteAttuale.getListaClassiDaDB());
-        ArrayList<EntityClasseVirtuale> entityClasseVirtualeArrayList =  docenteAttuale.getListaClassi();
-        ArrayList<ClasseVirtualeDTO> dtoList = new ArrayList<>();
-        for (EntityClasseVirtuale classeVirtuale : entityClasseVirtualeArrayList) {
-            dtoList.add(new ClasseVirtualeDTO(classeVirtuale.getCodiceUnivoco(),classeVirtuale.getNome()));
+        ReentrantLock lock = lockUtenti.get(emailDocente);
+        lock.lock();
+        try {
+            EntityDocente docenteAttuale =  piattaformaDigitale.getDocenteByEmail(emailDocente);
+            //la lista viene letta per intero e poi pubblicata: chi la legge in parallelo vede la vecchia o la nuova
+            ArrayList<EntityClasseVirtuale> entityClasseVirtualeArrayList =  docenteAttuale.getListaClassiDaDB();
+            docenteAttuale.setListaClassi(entityClasseVirtualeArrayList);
+            ArrayList<ClasseVirtualeDTO> dtoList = new ArrayList<>();
+            for (EntityClasseVirtuale classeVirtuale : entityClasseVirtualeArrayList) {
+                dtoList.add(new ClasseVirtualeDTO(classeVirtuale.getCodiceUnivoco(),classeVirtuale.getNome()));
+            }
+            return dtoList;
+        } finally {
+            lock.unlock();
         }
-        return dtoList;
     }
 
     /**
      * Crea un nuovo task didattico per una specifica classe virtuale
      * e lo assegna automaticamente a tutti gli studenti iscritti alla classe.
+     * La creazione del task e la sua assegnazione avvengono in un'unica transazione.
      *
      * @param titolo            titolo del task
      * @param descrizione       descrizione del task
@@ -257,69 +484,71 @@ public class Controller {
      * @return messaggio di esito dell'operazione
      */
     public  String creaTask(String titolo, String descrizione, LocalDate dataDiScadenza, int numeroMaxPunti , String codiceClasse, String emailDocente){
-        EntityClasseVirtuale classeAttuale = impostaTaskClasseAttuale(codiceClasse, emailDocente);
-        EntityTaskDidattico task = classeAttuale.creaTask(titolo, descrizione, dataDiScadenza,numeroMaxPunti,classeAttuale.getCodiceUnivoco());
-            if (  task != null) {
+        ReentrantLock lock = lockUtenti.get(emailDocente);
+        lock.lock();
+        try {
+            EntityDocente docenteAttuale = piattaformaDigitale.getDocenteByEmail(emailDocente);
+            EntityClasseVirtuale classeAttuale = docenteAttuale.getClasseByCodiceUnivoco(codiceClasse);
+            return DBManager.eseguiInTransazione(() -> {
+                EntityTaskDidattico task = classeAttuale.creaTask(titolo, descrizione, dataDiScadenza,numeroMaxPunti,classeAttuale.getCodiceUnivoco());
+                if (  task != null) {
 
-                int esitoAssociazione = task.associaTaskAStudenti(titolo, codiceClasse);
-                if (esitoAssociazione != -1){
-                    return "Task creato con successo";
-                }else{
-                    return "Task non trovato o errore nel DB";
+                    int esitoAssociazione = task.associaTaskAStudenti(titolo, codiceClasse);
+                    if (esitoAssociazione != -1){
+                        return "Task creato con successo";
+                    }else{
+                        DBManager.segnaPerRollback();
+                        classeAttuale.getTaskAssegnati().remove(task);
+                        return "Task non trovato o errore nel DB";
+                    }
                 }
-            }
-        return "Errore impossibile creare la task con questi dati, prova a cambiare titolo";
-    }
-
-    /**
-     * Carica e imposta la lista dei task didattici assegnati alla classe identificata dal codice fornito,
-     * appartenente al docente specificato. La lista di {@link TaskDidatticoDTO} viene recuperata dal database
-     * e convertita in una lista di {@link EntityTaskDidattico}, che viene poi associata all'istanza di classe virtuale.
-     *
-     * @param codiceClasse  codice univoco della classe virtuale
-     * @param emailDocente  email istituzionale del docente proprietario della classe
-     * @return l'oggetto {@link EntityClasseVirtuale} con la lista aggiornata dei task assegnati
-     */
-    private EntityClasseVirtuale impostaTaskClasseAttuale(String codiceClasse, String emailDocente) {
-        EntityDocente docenteAttuale = piattaformaDigitale.getDocenteByEmail(emailDocente);
-        EntityClasseVirtuale classeAttuale = docenteAttuale.getClasseByCodiceUnivoco(codiceClasse);
-        List<TaskDidatticoDTO> listaDTO = classeAttuale.getListaTaskAssegnati();
-        List<EntityTaskDidattico> listaEntity = new ArrayList<>();
-        for (TaskDidatticoDTO dto : listaDTO) {
-            listaEntity.add(new EntityTaskDidattico(dto.getTitolo(), dto.getDescrizione(), dto.getDataDiScadenza(), dto.getNumMaxDiPuntiAssegnabili()));
+                return "Errore impossibile creare la task con questi dati, prova a cambiare titolo";
+            });
+        } catch (ClassNotFoundException | SQLException e) {
+            e.printStackTrace();
+            return "Task non trovato o errore nel DB";
+        } catch (DatabaseNonDisponibileException e) {
+            return e.getMessage();
+        } finally {
+            lock.unlock();
         }
-        classeAttuale.setTaskAssegnati(listaEntity); //necessario per tenere la lista dei task locale aggiornata.
-        return classeAttuale;
     }
 
     /**
-     * Restituisce l'elenco degli studenti che hanno completato almeno un task
-     * all'interno di una determinata classe virtuale.
+     * Restituisce una pagina degli studenti che hanno completato almeno un task
+     * all'interno di una determinata classe virtuale, ordinati per email.
      *
-     * @param codiceClasse codice della classe virtuale
-     * @param emailDocente email del docente
-     * @return lista di studenti con almeno una consegna
+     * @param codiceClasse     codice della classe virtuale
+     * @param emailDocente     email del docente
+     * @param cursore          cursore restituito con la pagina precedente, {@code null} per la prima pagina
+     * @param dimensionePagina numero massimo di studenti della pagina
+     * @return pagina di studenti con almeno una consegna, oppure {@code null} in caso di errore nella lettura
+     * @throws DatabaseNonDisponibileException se il database non è raggiungibile
      */
-    public List<StudenteDTO> ottieniStudentiConAlmenoUnTaskConsegnato(String codiceClasse, String emailDocente) {
+    public PaginaDTO<StudenteDTO> ottieniStudentiConAlmenoUnTaskConsegnato(String codiceClasse, String emailDocente, String cursore, int dimensionePagina) {
         EntityDocente  docenteAttuale = piattaformaDigitale.getDocenteByEmail(emailDocente);
         EntityClasseVirtuale classeAttuale = docenteAttuale.getClasseByCodiceUnivoco(codiceClasse);
 
-        return classeAttuale.getStudentiConTaskConsegnato();
+        return classeAttuale.getPaginaStudentiConTaskConsegnato(cursore, dimensionePagina);
     }
 
     /**
-     * Restituisce l'elenco dei task completati da uno studente specifico.
+     * Restituisce una pagina dei task completati da uno studente specifico, letta dal database e ordinata per titolo.
      *
-     * @param emailStudente email istituzionale dello studente
-     * @return lista di task già consegnati
+     * @param emailStudente    email istituzionale dello studente
+     * @param cursore          cursore restituito con la pagina precedente, {@code null} per la prima pagina
+     * @param dimensionePagina numero massimo di task della pagina
+     * @return pagina di task già consegnati, oppure {@code null} in caso di errore nella lettura
+     * @throws DatabaseNonDisponibileException se il database non è raggiungibile
      */
-    public List<TaskDidatticoDTO> ottieniTaskConsegnatiDaStudente(String emailStudente) {
-        EntityStudente studenteAttuale = piattaformaDigitale.getStudenteByEmail(emailStudente);
-        List<TaskDidatticoDTO> entityList = studenteAttuale.getProfiloPersonale().ottieniTaskConsegnatiDaStudente();
-        List<dto.TaskDidatticoDTO> dtoList = new ArrayList<>();
-        for (TaskDidatticoDTO task : entityList) {
-            dtoList.add(new dto.TaskDidatticoDTO(task.getTitolo(), task.getDescrizione(), task.getDataDiScadenza(), task.getNumMaxDiPuntiAssegnabili()));
+    public PaginaDTO<IntestazioneTaskDTO> ottieniTaskConsegnatiDaStudente(String emailStudente, String cursore, int dimensionePagina) {
+        ReentrantLock lock = lockUtenti.get(emailStudente);
+        lock.lock();
+        try {
+            EntityStudente studenteAttuale = piattaformaDigitale.getStudenteByEmail(emailStudente);
+            return studenteAttuale.getProfiloPersonale().getPaginaTaskConsegnati(cursore, dimensionePagina);
+        } finally {
+            lock.unlock();
         }
-        return dtoList;
     }
 }
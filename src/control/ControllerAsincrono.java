@@ -0,0 +1,159 @@
+package control;
+
+import database.DBManager;
+import dto.ClasseVirtualeDTO;
+import dto.IntestazioneTaskDTO;
+import dto.PaginaDTO;
+import dto.RegistrazioneStudenteDTO;
+import dto.StudenteDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Facciata asincrona del {@link Controller}, pensata per essere invocata dal thread grafico di Swing.
+ * <p>
+ * Ogni metodo delega all'omonimo metodo del {@link Controller}, eseguendolo su un virtual thread tramite
+ * {@link DBManager#eseguiAsync}, e restituisce subito un {@link CompletableFuture} con il suo risultato.
+ * La concorrenza verso il database è limitata dal {@link DBManager}.
+ * <p>
+ * Il future viene completato sul virtual thread: la boundary deve aggiornare i componenti grafici
+ * riportandosi sul thread grafico, ad esempio con
+ * {@code whenCompleteAsync(..., SwingUtilities::invokeLater)}. Gli errori dei metodi che restituiscono
+ * liste, come {@link database.DatabaseNonDisponibileException}, completano il future eccezionalmente.
+ * <p>
+ * Attualmente è implementata come singleton tramite {@code getInstance()}
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+public class ControllerAsincrono {
+    private final Controller controller = Controller.getInstance();
+    //volatile: l'istanza viene pubblicata agli altri thread solo dopo che il costruttore è terminato
+    private static volatile ControllerAsincrono singletonControllerAsincrono = null;
+
+    /**
+     * Costruttore privato, utilizzato per implementare il pattern Singleton.
+     */
+    private ControllerAsincrono() {
+    }
+
+    /**
+     * Restituisce l'istanza singleton del ControllerAsincrono, creandola alla prima invocazione.
+     * La creazione avviene una sola volta anche se più thread invocano il metodo insieme; una volta creata,
+     * l'istanza viene restituita senza lock. Se la creazione fallisce, verrà ritentata alla prossima invocazione.
+     *
+     * @return l'unica istanza di {@code ControllerAsincrono}
+     */
+    public static ControllerAsincrono getInstance() {
+        ControllerAsincrono istanza = singletonControllerAsincrono;
+        if (istanza == null) {
+            synchronized (ControllerAsincrono.class) {
+                istanza = singletonControllerAsincrono;
+                if (istanza == null) {
+                    istanza = new ControllerAsincrono();
+                    singletonControllerAsincrono = istanza;
+                }
+            }
+        }
+        return istanza;
+    }
+
+    /**
+     * @see Controller#registraStudente(String, String, String, String)
+     */
+    public CompletableFuture<String> registraStudente(String nome, String cognome, String email, String password) {
+        return DBManager.eseguiAsync(() -> controller.registraStudente(nome, cognome, email, password));
+    }
+
+    /**
+     * @see Controller#registraStudenti(List)
+     */
+    public CompletableFuture<String> registraStudenti(List<RegistrazioneStudenteDTO> studenti) {
+        return DBManager.eseguiAsync(() -> controller.registraStudenti(studenti));
+    }
+
+    /**
+     * @see Controller#registraDocente(String, String, String, String)
+     */
+    public CompletableFuture<String> registraDocente(String nome, String cognome, String email, String password) {
+        return DBManager.eseguiAsync(() -> controller.registraDocente(nome, cognome, email, password));
+    }
+
+    /**
+     * @see Controller#accessoAlProfiloPersonale(String, String)
+     */
+    public CompletableFuture<String> accessoAlProfiloPersonale(String email, String password) {
+        return DBManager.eseguiAsync(() -> controller.accessoAlProfiloPersonale(email, password));
+    }
+
+    /**
+     * @see Controller#assegnaBadgeMancanti()
+     */
+    public CompletableFuture<String> assegnaBadgeMancanti() {
+        return DBManager.eseguiAsync(controller::assegnaBadgeMancanti);
+    }
+
+    /**
+     * @see Controller#accessoAlleClassiVirtuali(String, String)
+     */
+    public CompletableFuture<String> accessoAlleClassiVirtuali(String email, String password) {
+        return DBManager.eseguiAsync(() -> controller.accessoAlleClassiVirtuali(email, password));
+    }
+
+    /**
+     * @see Controller#ottieniTaskAssegnatiStudente(String)
+     */
+    public CompletableFuture<List<IntestazioneTaskDTO>> ottieniTaskAssegnatiStudente(String emailStudente) {
+        return DBManager.eseguiAsync(() -> controller.ottieniTaskAssegnatiStudente(emailStudente));
+    }
+
+    /**
+     * @see Controller#ottieniDescrizioneTask(String)
+     */
+    public CompletableFuture<String> ottieniDescrizioneTask(String titolo) {
+        return DBManager.eseguiAsync(() -> controller.ottieniDescrizioneTask(titolo));
+    }
+
+    /**
+     * @see Controller#consegnaTask(String, String)
+     */
+    public CompletableFuture<String> consegnaTask(String emailStudente, String titolo) {
+        return DBManager.eseguiAsync(() -> controller.consegnaTask(emailStudente, titolo));
+    }
+
+    /**
+     * @see Controller#ottieniTaskAssegnatiClasse(String, String, String, int)
+     */
+    public CompletableFuture<PaginaDTO<IntestazioneTaskDTO>> ottieniTaskAssegnatiClasse(String codiceClasse, String emailDocente, String cursore, int dimensionePagina) {
+        return DBManager.eseguiAsync(() -> controller.ottieniTaskAssegnatiClasse(codiceClasse, emailDocente, cursore, dimensionePagina));
+    }
+
+    /**
+     * @see Controller#ottieniClassiDelDocente(String)
+     */
+    public CompletableFuture<List<ClasseVirtualeDTO>> ottieniClassiDelDocente(String emailDocente) {
+        return DBManager.eseguiAsync(() -> controller.ottieniClassiDelDocente(emailDocente));
+    }
+
+    /**
+     * @see Controller#creaTask(String, String, LocalDate, int, String, String)
+     */
+    public CompletableFuture<String> creaTask(String titolo, String descrizione, LocalDate dataDiScadenza, int numeroMaxPunti, String codiceClasse, String emailDocente) {
+        return DBManager.eseguiAsync(() -> controller.creaTask(titolo, descrizione, dataDiScadenza, numeroMaxPunti, codiceClasse, emailDocente));
+    }
+
+    /**
+     * @see Controller#ottieniStudentiConAlmenoUnTaskConsegnato(String, String, String, int)
+     */
+    public CompletableFuture<PaginaDTO<StudenteDTO>> ottieniStudentiConAlmenoUnTaskConsegnato(String codiceClasse, String emailDocente, String cursore, int dimensionePagina) {
+        return DBManager.eseguiAsync(() -> controller.ottieniStudentiConAlmenoUnTaskConsegnato(codiceClasse, emailDocente, cursore, dimensionePagina));
+    }
+
+    /**
+     * @see Controller#ottieniTaskConsegnatiDaStudente(String, String, int)
+     */
+    public CompletableFuture<PaginaDTO<IntestazioneTaskDTO>> ottieniTaskConsegnatiDaStudente(String emailStudente, String cursore, int dimensionePagina) {
+        return DBManager.eseguiAsync(() -> controller.ottieniTaskConsegnatiDaStudente(emailStudente, cursore, dimensionePagina));
+    }
+}
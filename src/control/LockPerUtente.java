@@ -0,0 +1,53 @@
+package control;
+
+import entity.EntityPiattaformaDigitale;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Insieme di lock suddiviso in strisce, indicizzate dall'indirizzo email dell'utente.
+ * <p>
+ * Le operazioni del Controller che modificano lo stato in memoria di uno studente o di un docente
+ * (profilo personale, attività, classi gestite) vengono eseguite tenendo il lock della striscia del suo indirizzo email:
+ * le operazioni sullo stesso utente vengono serializzate, mentre quelle su utenti diversi procedono in parallelo,
+ * salvo i rari casi in cui due indirizzi cadono nella stessa striscia. Il numero di strisce è fisso,
+ * quindi la memoria occupata non dipende dal numero di utenti.
+ * <p>
+ * Vengono usati {@link ReentrantLock} e non blocchi {@code synchronized}, perché le operazioni vengono eseguite
+ * anche sui virtual thread di {@link database.DBManager#eseguiAsync} e tengono il lock durante le query.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+final class LockPerUtente {
+    private final ReentrantLock[] strisce;
+
+    /**
+     * @param numeroStrisce numero minimo di strisce, arrotondato alla potenza di 2 successiva
+     */
+    LockPerUtente(int numeroStrisce) {
+        int n = 1;
+        while (n < numeroStrisce) {
+            n <<= 1;
+        }
+        this.strisce = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) {
+            strisce[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Restituisce il lock della striscia dell'indirizzo email, senza distinguere maiuscole e minuscole
+     * (vedi {@link EntityPiattaformaDigitale#normalizzaEmail(String)}).
+     *
+     * @param email indirizzo email dell'utente, {@code null} usa la prima striscia
+     * @return lock da acquisire prima di operare sull'utente
+     */
+    ReentrantLock get(String email) {
+        if (email == null) {
+            return strisce[0];
+        }
+        int h = EntityPiattaformaDigitale.normalizzaEmail(email).hashCode();
+        //i bit alti partecipano all'indice come in HashMap
+        return strisce[(h ^ (h >>> 16)) & (strisce.length - 1)];
+    }
+}
@@ -1,9 +1,9 @@
 package database;
 
+import dto.IntestazioneTaskDTO;
+import dto.PaginaDTO;
 import dto.StudenteDTO;
 
-import dto.TaskDidatticoDTO;
-
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -18,13 +18,15 @@ import java.util.List;
  * <p>
  * Le responsabilità principali di questa classe includono:
  * -Assegnare un task a tutti gli studenti di una classe virtuale
+ * -Consegnare un task, aggiornando nella stessa transazione i contatori del profilo personale
  * -Recuperare i task assegnati a uno studente
  * -Recuperare l’elenco degli studenti che hanno consegnato almeno un task
  * -Recuperare i task già consegnati da uno studente specifico
+ * -Recuperare gli stessi elenchi una pagina alla volta, con paginazione per chiave
  *
  * <p>
- * I dati restituiti sono tipicamente convertiti in oggetti {@link TaskDidatticoDTO} o {@link StudenteDTO}
- * per essere trasmessi al livello di presentazione tramite Controller.
+ * Gli elenchi mostrati all'utente vengono restituiti direttamente come {@link IntestazioneTaskDTO} o {@link StudenteDTO},
+ * leggendo le colonne per posizione, per essere trasmessi al livello di presentazione tramite Controller.
  * <p>
  * Tutte le query sono eseguite utilizzando il {@link DBManager}, e in caso di errore viene restituito -1 o null.
  *
@@ -36,6 +38,21 @@ public class AttivitaDAO {
     private TaskDidatticoDAO taskAssociato;
     private boolean consegnato;
 
+    //le colonne vengono lette per posizione: mappaAttivita e mappaStudente seguono l'ordine di queste SELECT
+    private static final String QUERY_ATTIVITA_STUDENTE =
+            "SELECT " + TaskDidatticoDAO.COLONNE_INTESTAZIONE + ", pp.NumeroTaskSvolti, pp.TotalePuntiOttenuti, a.Consegnato " +
+            "FROM profilo_personale pp  JOIN attivita a ON pp.studente_Id = a.profilo_personale_studente_Id " +
+            "JOIN task_didattico t ON a.task_didattico_Id = t.Id " +
+            "WHERE a.profilo_personale_studente_Id = ? ";
+    private static final String SELECT_TASK_STUDENTE =
+            "SELECT " + TaskDidatticoDAO.COLONNE_INTESTAZIONE + " " +
+            "FROM attivita a JOIN task_didattico t ON a.task_didattico_Id = t.Id";
+    private static final String CONDIZIONE_TASK_STUDENTE = "a.profilo_personale_studente_Id = ? AND a.Consegnato = ?";
+    private static final String SELECT_STUDENTI = "SELECT s.IndirizzoEmailIstituzionale, s.Nome, s.Cognome FROM studente s";
+    private static final String CONDIZIONE_STUDENTI_CON_TASK_CONSEGNATO = "s.classe_virtuale_Id = ? " +
+            "AND EXISTS (SELECT 1 FROM attivita a WHERE a.profilo_personale_studente_Id = s.Id AND a.Consegnato = 1)";
+    private static final String QUERY_STUDENTI_CON_TASK_CONSEGNATO = SELECT_STUDENTI + " WHERE " + CONDIZIONE_STUDENTI_CON_TASK_CONSEGNATO;
+
     /**
      * Costuttore di default della classe
      */
@@ -65,19 +82,84 @@ public class AttivitaDAO {
      * @return numero di righe inserite nel database, oppure -1 in caso di errore
      */
     public  int associaTaskAStudenti(String titolo, String codiceClasse){
-        String query = "INSERT INTO Attivita (" +
-                "profilo_personale_studente_IndirizzoEmailIstituzionale, task_didattico_Titolo, Consegnato) " +
-                "SELECT s.IndirizzoEmailIstituzionale, '" + titolo.replace("'", "''") + "', 0 " +
+        String query = "INSERT INTO Attivita (profilo_personale_studente_Id, task_didattico_Id, Consegnato) " +
+                "SELECT s.Id, ?, 0 " +
                 "FROM studente s " +
-                "WHERE s.classe_virtuale_CodiceUnivoco = '" + codiceClasse.replace("'", "''") + "'";
+                "WHERE s.classe_virtuale_Id = ?";
         try {
-            return DBManager.updateQuery(query);
+            Integer idTask = ChiaviSurrogate.task(titolo);
+            if (idTask == null) {
+                return -1; //task inesistente
+            }
+            Integer idClasse = ChiaviSurrogate.classe(codiceClasse);
+            if (idClasse == null) {
+                return 0;
+            }
+            return DBManager.updateQuery(query, idTask, idClasse);
         }catch (ClassNotFoundException | SQLException e){
             e.printStackTrace();
             return -1;
         }
     }
 
+    /**
+     * Segna come consegnato il task indicato dello studente e aggiorna i contatori del suo profilo personale,
+     * in un'unica transazione.
+     * <p>
+     * L'aggiornamento dell'attività avviene solo se non era già consegnata e ne blocca la riga, quindi due consegne
+     * concorrenti dello stesso task incrementano i contatori una sola volta. I contatori vengono incrementati
+     * direttamente nel database, con i punti massimi assegnabili del task, senza leggerli prima; i valori aggiornati
+     * vengono poi letti nella stessa transazione e salvati in {@code profiloPersonaleAssociato}.
+     *
+     * @param emailStudente indirizzo email dello studente
+     * @param titolo        titolo del task da consegnare
+     * @return {@code 1} se il task è stato consegnato,
+     *         {@code 0} se lo studente non ha il task oppure lo aveva già consegnato,
+     *         {@code -1} in caso di errore
+     */
+    public int consegnaTask(String emailStudente, String titolo) {
+        String queryAttivita = "UPDATE attivita SET Consegnato = 1 " +
+                "WHERE profilo_personale_studente_Id = ? AND task_didattico_Id = ? AND Consegnato = 0";
+        //sottoquery al posto della UPDATE con JOIN, che il database incorporato non supporta
+        String queryContatori = "UPDATE profilo_personale " +
+                "SET NumeroTaskSvolti = NumeroTaskSvolti + 1, TotalePuntiOttenuti = TotalePuntiOttenuti + " +
+                "(SELECT t.NumeroMassimoDiPuntiAssegnabili FROM task_didattico t WHERE t.Id = ?) " +
+                "WHERE studente_Id = ?";
+        String queryProfilo = "SELECT TotalePuntiOttenuti, NumeroTaskSvolti FROM profilo_personale WHERE studente_Id = ?";
+        try {
+            Integer idStudente = ChiaviSurrogate.studente(emailStudente);
+            Integer idTask = ChiaviSurrogate.task(titolo);
+            if (idStudente == null || idTask == null) {
+                return 0; //studente o task inesistente
+            }
+            return DBManager.eseguiInTransazione(() -> {
+                if (DBManager.updateQuery(queryAttivita, idStudente, idTask) == 0) {
+                    return 0; //attività inesistente o già consegnata
+                }
+                if (DBManager.updateQuery(queryContatori, idTask, idStudente) != 1) {
+                    DBManager.segnaPerRollback();
+                    return -1;
+                }
+                ProfiloPersonaleDAO profilo = DBManager.selectFirst(queryProfilo, rs -> {
+                    ProfiloPersonaleDAO p = new ProfiloPersonaleDAO();
+                    p.setIndirizzoEmailIstituzionale(emailStudente);
+                    p.setTotalePuntiOttenuti(rs.getInt(1));
+                    p.setNumeroTaskSvolti(rs.getInt(2));
+                    return p;
+                }, idStudente);
+                TaskDidatticoDAO task = new TaskDidatticoDAO();
+                task.setTitolo(titolo);
+                this.setProfiloPersonaleAssociato(profilo);
+                this.setTaskAssociato(task);
+                this.setConsegnato(true);
+                return 1;
+            });
+        } catch (SQLException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
     /**
      * Restituisce l'elenco dei task non ancora consegnati dallo studente.
      *
@@ -85,16 +167,7 @@ public class AttivitaDAO {
      * @return lista di oggetti {@code AttivitaDAO} con stato consegna false
      */
     public List<AttivitaDAO> selezionaTaskAssegnati(String emailStudente) {
-        List<AttivitaDAO> listaAttivita = new ArrayList<>();
-
-        String query = "SELECT t.Titolo, t.Descrizione, t.DataDiScadenza, t.NumeroMassimoDiPuntiAssegnabili, pp.NumeroTaskSvolti, pp.TotalePuntiOttenuti, a.Consegnato " +
-                "FROM profilo_personale pp  JOIN attivita a " +
-                "ON pp.studente_IndirizzoEmailIstituzionale = a.profilo_personale_studente_IndirizzoEmailIstituzionale " +
-                "JOIN task_didattico t ON a.task_didattico_Titolo = t.Titolo " +
-                "WHERE a.profilo_personale_studente_IndirizzoEmailIstituzionale = '" + emailStudente.replace("'", "''") +"'" +
-                "AND a.Consegnato = 0";
-
-        return getListaAttivitaDAO(emailStudente, listaAttivita, query);
+        return getListaAttivitaDAO(emailStudente, QUERY_ATTIVITA_STUDENTE + "AND a.Consegnato = 0");
     }
 
     /**
@@ -104,88 +177,130 @@ public class AttivitaDAO {
      * @return lista di oggetti {@code AttivitaDAO} con stato consegna true
      */
     public List<AttivitaDAO> ottieniTaskConsegnatiDaStudente(String emailStudente) {
-        List<AttivitaDAO> listaAttivita = new ArrayList<>();
-
-        String query = "SELECT t.Titolo, t.Descrizione, t.DataDiScadenza, t.NumeroMassimoDiPuntiAssegnabili, pp.NumeroTaskSvolti, pp.TotalePuntiOttenuti, a.Consegnato " +
-                "FROM profilo_personale pp  JOIN attivita a " +
-                "ON pp.studente_IndirizzoEmailIstituzionale = a.profilo_personale_studente_IndirizzoEmailIstituzionale " +
-                "JOIN task_didattico t ON a.task_didattico_Titolo = t.Titolo " +
-                "WHERE a.profilo_personale_studente_IndirizzoEmailIstituzionale = '" + emailStudente.replace("'", "''") +"'" +
-                "AND a.Consegnato = 1";
-
-        return getListaAttivitaDAO(emailStudente, listaAttivita, query);
+        return getListaAttivitaDAO(emailStudente, QUERY_ATTIVITA_STUDENTE + "AND a.Consegnato = 1");
+    }
 
+    /**
+     * Restituisce una pagina delle intestazioni dei task di uno studente, ordinate per titolo.
+     * Ogni pagina riprende dall'ultimo task della precedente (vedi {@link DBManager#selectPagina}).
+     *
+     * @param emailStudente indirizzo email dello studente
+     * @param consegnato    true per i task consegnati, false per quelli ancora da consegnare
+     * @param cursore       cursore restituito con la pagina precedente, {@code null} per la prima pagina
+     * @param dimensione    numero massimo di task della pagina
+     * @return pagina di {@link IntestazioneTaskDTO}, oppure {@code null} in caso di errore
+     */
+    public PaginaDTO<IntestazioneTaskDTO> getPaginaTaskStudente(String emailStudente, boolean consegnato, String cursore, int dimensione) {
+        try {
+            Integer idStudente = ChiaviSurrogate.studente(emailStudente);
+            if (idStudente == null) {
+                return PaginaDTO.vuota();
+            }
+            return DBManager.selectPagina(SELECT_TASK_STUDENTE, CONDIZIONE_TASK_STUDENTE, "t.Titolo", cursore, dimensione,
+                    TaskDidatticoDAO::mappaIntestazione, IntestazioneTaskDTO::getTitolo, idStudente, consegnato);
+        } catch (SQLException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        }
     }
 
     /**
      * Recupera e costruisce la lista di attività {@code AttivitaDAO} in base a una query SQL specifica.
      *
-     * @param emailStudente indirizzo email dello studente
-     * @param listaAttivita lista da riempire con i risultati
+     * @param emailStudente indirizzo email dello studente, la cui chiave surrogata è l'unico parametro della query
      * @param query         query SQL da eseguire
-     * @return lista di {@code AttivitaDAO} ottenute dal database
+     * @return lista di {@code AttivitaDAO} ottenute dal database, vuota in caso di errore
      */
-    private List<AttivitaDAO> getListaAttivitaDAO(String emailStudente, List<AttivitaDAO> listaAttivita, String query) {
+    private List<AttivitaDAO> getListaAttivitaDAO(String emailStudente, String query) {
         try {
-            ResultSet rs = DBManager.selectQuery(query);
+            Integer idStudente = ChiaviSurrogate.studente(emailStudente);
+            if (idStudente == null) {
+                return new ArrayList<>();
+            }
+            return DBManager.selectList(query, rs -> mappaAttivita(rs, emailStudente), idStudente);
 
-            while (rs.next()) {
-                // Costruzione oggetti Task e Profilo
-                TaskDidatticoDAO task = new TaskDidatticoDAO();
-                task.setTitolo(rs.getString("Titolo"));
-                task.setDescrizione(rs.getString("Descrizione"));
-                task.setDataDiScadenza(rs.getDate("DataDiScadenza").toLocalDate());
-                task.setNumeroMassimoDiPuntiAssegnabili(rs.getInt("NumeroMassimoDiPuntiAssegnabili"));
+        } catch (SQLException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
 
-                ProfiloPersonaleDAO profilo = new ProfiloPersonaleDAO();
-                profilo.setIndirizzoEmailIstituzionale(emailStudente);
-                profilo.setNumeroTaskSvolti(rs.getInt("NumeroTaskSvolti"));
-                profilo.setTotalePuntiOttenuti(rs.getInt("TotalePuntiOttenuti"));
+    /**
+     * Costruisce un'attività, con il task senza descrizione e il profilo dello studente, dalla riga corrente di una query
+     * basata su {@code QUERY_ATTIVITA_STUDENTE}.
+     *
+     * @param rs            result set posizionato sulla riga da convertire
+     * @param emailStudente indirizzo email dello studente
+     * @return attività letta dalla riga
+     * @throws SQLException in caso di errore nella lettura delle colonne
+     */
+    private static AttivitaDAO mappaAttivita(ResultSet rs, String emailStudente) throws SQLException {
+        // Costruzione oggetti Task e Profilo
+        TaskDidatticoDAO task = TaskDidatticoDAO.leggiIntestazione(rs, 1);
 
-                boolean statoConsegnato = rs.getBoolean("Consegnato");
+        ProfiloPersonaleDAO profilo = new ProfiloPersonaleDAO();
+        profilo.setIndirizzoEmailIstituzionale(emailStudente);
+        profilo.setNumeroTaskSvolti(rs.getInt(4));
+        profilo.setTotalePuntiOttenuti(rs.getInt(5));
 
-                listaAttivita.add(new AttivitaDAO(profilo,task, statoConsegnato));
+        boolean statoConsegnato = rs.getBoolean(6);
 
-            }
+        return new AttivitaDAO(profilo,task, statoConsegnato);
+    }
 
+    /**
+     * Restituisce l'elenco degli studenti di una classe che hanno consegnato almeno un task.
+     *
+     * @param codiceClasse codice univoco della classe virtuale
+     * @return lista di {@link StudenteDTO} che hanno consegnato almeno un'attività, oppure {@code null} in caso di errore
+     */
+    public ArrayList<StudenteDTO> getStudentiConTaskConsegnato(String codiceClasse) {
+        try {
+            Integer idClasse = ChiaviSurrogate.classe(codiceClasse);
+            if (idClasse == null) {
+                return new ArrayList<>();
+            }
+            return DBManager.selectList(QUERY_STUDENTI_CON_TASK_CONSEGNATO, AttivitaDAO::mappaStudente, idClasse);
         } catch (SQLException | ClassNotFoundException e) {
             e.printStackTrace();
+            return null;
         }
-
-        return listaAttivita;
     }
 
     /**
-     * Restituisce l'elenco degli studenti di una classe che hanno consegnato almeno un task.
+     * Restituisce una pagina degli studenti di una classe che hanno consegnato almeno un task,
+     * ordinati per indirizzo email. Ogni pagina riprende dall'ultimo studente della precedente
+     * (vedi {@link DBManager#selectPagina}).
      *
      * @param codiceClasse codice univoco della classe virtuale
-     * @return lista di oggetti {@link StudenteDAO} che hanno consegnato almeno un'attività
+     * @param cursore      cursore restituito con la pagina precedente, {@code null} per la prima pagina
+     * @param dimensione   numero massimo di studenti della pagina
+     * @return pagina di {@link StudenteDTO}, oppure {@code null} in caso di errore
      */
-    public ArrayList<StudenteDAO> getStudentiConTaskConsegnato(String codiceClasse) {
-        ArrayList<StudenteDAO> studentiConsegna = new ArrayList<>();
-
-        String query = "SELECT DISTINCT s.IndirizzoEmailIstituzionale, s.Nome, s.Cognome, s.classe_virtuale_CodiceUnivoco " +
-                "FROM studente s " +
-                "JOIN profilo_personale p ON s.IndirizzoEmailIstituzionale = p.studente_IndirizzoEmailIstituzionale " +
-                "JOIN attivita a ON p.studente_IndirizzoEmailIstituzionale = a.profilo_personale_studente_IndirizzoEmailIstituzionale " +
-                "WHERE a.Consegnato = 1 " +
-                "AND s.classe_virtuale_CodiceUnivoco = '" + codiceClasse.replace("'", "''") + "'";
-
+    public PaginaDTO<StudenteDTO> getPaginaStudentiConTaskConsegnato(String codiceClasse, String cursore, int dimensione) {
         try {
-            ResultSet rs = DBManager.selectQuery(query);
-            while (rs.next()) {
-                StudenteDAO studente = new StudenteDAO();
-                studente.setNome(rs.getString("Nome"));
-                studente.setCognome(rs.getString("Cognome"));
-                studente.setIndirizzoEmailIstituzionale(rs.getString("IndirizzoEmailIstituzionale"));
-                studentiConsegna.add(studente);
+            Integer idClasse = ChiaviSurrogate.classe(codiceClasse);
+            if (idClasse == null) {
+                return PaginaDTO.vuota();
             }
+            return DBManager.selectPagina(SELECT_STUDENTI, CONDIZIONE_STUDENTI_CON_TASK_CONSEGNATO, "s.IndirizzoEmailIstituzionale", cursore, dimensione,
+                    AttivitaDAO::mappaStudente, StudenteDTO::getEmail, idClasse);
         } catch (SQLException | ClassNotFoundException e) {
             e.printStackTrace();
             return null;
         }
+    }
 
-        return studentiConsegna;
+    /**
+     * Converte la riga corrente di {@code QUERY_STUDENTI_CON_TASK_CONSEGNATO} direttamente nello studente
+     * mostrato negli elenchi.
+     *
+     * @param rs result set posizionato sulla riga da convertire
+     * @return studente con nome, cognome e indirizzo email
+     * @throws SQLException in caso di errore nella lettura delle colonne
+     */
+    private static StudenteDTO mappaStudente(ResultSet rs) throws SQLException {
+        return new StudenteDTO(rs.getString(2), rs.getString(3), rs.getString(1));
     }
 
     // Getter e Setter
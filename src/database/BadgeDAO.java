@@ -1,6 +1,5 @@
 package database;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
@@ -34,18 +33,15 @@ public class BadgeDAO {
      * che segnala l'assenza del badge nel database.
      */
     public int caricaDaDB(){
-        String query = "SELECT * FROM Badge WHERE Nome = '" + this.nome + "'";
+        String query = "SELECT Nome, Descrizione, Immagine FROM Badge WHERE Nome = ?";
         try{
-            ResultSet rs = DBManager.selectQuery(query);
-            if (rs.next()) {
+            BadgeDAO trovato = DBManager.selectFirst(query, rs -> {
                 this.nome = rs.getString("Nome");
                 this.setDescrizione(rs.getString("Descrizione"));
                 this.setImmagine(rs.getBoolean("Immagine"));
-
-                return 1;
-            } else {
-                return 0;
-            }
+                return this;
+            }, this.nome);
+            return (trovato != null) ? 1 : 0;
         } catch (ClassNotFoundException | SQLException e) {
             e.printStackTrace();
             return -1;
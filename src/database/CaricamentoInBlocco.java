@@ -0,0 +1,27 @@
+package database;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lettura dal database di più oggetti a partire dalle loro chiavi, utilizzata da {@link CaricatoreInBlocco}.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ *
+ * @param <K> tipo della chiave
+ * @param <V> tipo dell'oggetto caricato
+ */
+@FunctionalInterface
+public interface CaricamentoInBlocco<K, V> {
+
+    /**
+     * Carica gli oggetti corrispondenti alle chiavi indicate, di norma con un'unica query {@code IN (...)}.
+     *
+     * @param chiavi chiavi distinte, al più {@link DBManager#dimensioneBloccoChiavi}
+     * @return oggetti trovati indicizzati per chiave; le chiavi senza corrispondenza possono mancare
+     * @throws ClassNotFoundException se il driver del database non è disponibile
+     * @throws SQLException           in caso di errore di accesso al database
+     */
+    Map<K, V> carica(List<K> chiavi) throws ClassNotFoundException, SQLException;
+}
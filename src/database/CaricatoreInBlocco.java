@@ -0,0 +1,221 @@
+package database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Caricatore che raggruppa le letture per chiave in poche query {@code IN (...)}, sul modello dei DataLoader.
+ * <p>
+ * Una chiave richiesta con {@link #carica(Object)} mentre il caricatore non sta leggendo viene letta subito,
+ * senza attese. Le chiavi richieste da altri thread durante quella lettura vengono accumulate e lette insieme,
+ * con un'unica query, appena la lettura termina; le richieste contemporanee della stessa chiave ricevono
+ * lo stesso risultato. Ogni blocco viene letto da uno dei thread che ne attendono il risultato, quindi usa
+ * la connessione, e il permesso di {@link DBManager#eseguiAsync}, di un thread che è già in attesa;
+ * un blocco che raggiunge {@link DBManager#dimensioneBloccoChiavi} chiavi viene letto subito, in parallelo.
+ * Il blocco viene letto con la scrittura più recente dei thread che lo attendono, così che il read-your-writes
+ * di ciascuno (vedi {@link DBManager#finestraLetturaDalPrimarioMillis}) valga anche quando la query parte
+ * da un altro thread. Le richieste fatte durante una transazione vengono eseguite subito, in modo da partecipare
+ * alla transazione.
+ * <p>
+ * Quando le chiavi sono già note tutte insieme, ad esempio per l'elenco degli iscritti,
+ * {@link #caricaTutti(Collection)} le legge direttamente, a blocchi di {@link DBManager#dimensioneBloccoChiavi}.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ *
+ * @param <K> tipo della chiave
+ * @param <V> tipo dell'oggetto caricato
+ */
+public class CaricatoreInBlocco<K, V> {
+    private final CaricamentoInBlocco<K, V> caricamento;
+    private LinkedHashMap<K, CompletableFuture<V>> inAttesa = new LinkedHashMap<>();
+    //scrittura più recente dei thread che attendono le chiavi in attesa, 0 se nessuno ha scritto
+    private long scritturaInAttesa;
+    //true mentre un thread legge un blocco: le nuove chiavi restano in attesa della fine della lettura
+    private boolean inLettura;
+
+    /**
+     * Chiavi estratte per essere lette con un'unica query.
+     *
+     * @param risultati chiavi da leggere con i relativi risultati
+     * @param scrittura scrittura più recente dei thread che attendono le chiavi
+     */
+    private record Blocco<K, V>(LinkedHashMap<K, CompletableFuture<V>> risultati, long scrittura) {
+    }
+
+    /**
+     * @param caricamento lettura di un blocco di chiavi distinte
+     */
+    public CaricatoreInBlocco(CaricamentoInBlocco<K, V> caricamento) {
+        this.caricamento = caricamento;
+    }
+
+    /**
+     * Restituisce l'oggetto corrispondente alla chiave, letto insieme alle altre chiavi
+     * richieste mentre era in corso la lettura precedente.
+     *
+     * @param chiave chiave dell'oggetto
+     * @return oggetto trovato, oppure {@code null} se non esiste
+     * @throws ClassNotFoundException se il driver del database non è disponibile
+     * @throws SQLException           in caso di errore nella lettura del blocco
+     */
+    public V carica(K chiave) throws ClassNotFoundException, SQLException {
+        if (DBManager.inTransazione()) {
+            return caricamento.carica(List.of(chiave)).get(chiave);
+        }
+
+        CompletableFuture<V> risultato;
+        synchronized (this) {
+            risultato = inAttesa.computeIfAbsent(chiave, k -> new CompletableFuture<>());
+            scritturaInAttesa = Math.max(scritturaInAttesa, DBManager.ultimaScrittura());
+        }
+        boolean interrotto = false;
+        while (!risultato.isDone()) {
+            Blocco<K, V> blocco = null;
+            boolean bloccoPieno = false;
+            synchronized (this) {
+                if (inAttesa.size() >= DBManager.dimensioneBloccoChiavi) {
+                    blocco = estraiInAttesa();
+                    bloccoPieno = true;
+                } else if (!inLettura && !inAttesa.isEmpty()) {
+                    inLettura = true;
+                    blocco = estraiInAttesa();
+                } else if (!risultato.isDone()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        //il risultato viene comunque atteso: la chiave potrebbe essere in un blocco che solo questo thread legge
+                        interrotto = true;
+                    }
+                }
+            }
+            if (blocco != null) {
+                try {
+                    leggi(blocco);
+                } finally {
+                    synchronized (this) {
+                        if (!bloccoPieno) {
+                            inLettura = false;
+                        }
+                        notifyAll();
+                    }
+                }
+            }
+        }
+        if (interrotto) {
+            Thread.currentThread().interrupt();
+        }
+        return attendi(risultato);
+    }
+
+    /**
+     * Carica gli oggetti corrispondenti alle chiavi indicate, ignorando le chiavi ripetute,
+     * con una query per ogni blocco di {@link DBManager#dimensioneBloccoChiavi} chiavi.
+     *
+     * @param chiavi chiavi degli oggetti
+     * @return oggetti trovati indicizzati per chiave; le chiavi senza corrispondenza non sono presenti
+     * @throws ClassNotFoundException se il driver del database non è disponibile
+     * @throws SQLException           in caso di errore di accesso al database
+     */
+    public Map<K, V> caricaTutti(Collection<K> chiavi) throws ClassNotFoundException, SQLException {
+        List<K> distinte = new ArrayList<>(new LinkedHashSet<>(chiavi));
+        Map<K, V> ret = new HashMap<>();
+        for (int i = 0; i < distinte.size(); i += DBManager.dimensioneBloccoChiavi) {
+            List<K> blocco = distinte.subList(i, Math.min(i + DBManager.dimensioneBloccoChiavi, distinte.size()));
+            ret.putAll(caricamento.carica(blocco));
+        }
+        return ret;
+    }
+
+    /**
+     * Indicizza gli oggetti letti con le chiavi testuali richieste. Il database confronta le chiavi senza distinguere
+     * maiuscole e minuscole, quindi una chiave richiesta può trovare una riga scritta diversamente.
+     *
+     * @param richieste chiavi richieste
+     * @param trovati   oggetti letti indicizzati per la chiave scritta nel database
+     * @param <V>       tipo dell'oggetto caricato
+     * @return oggetti trovati indicizzati per chiave richiesta
+     */
+    static <V> Map<String, V> perChiaviRichieste(List<String> richieste, Map<String, V> trovati) {
+        Map<String, V> perChiaveMinuscola = new HashMap<>();
+        for (Map.Entry<String, V> voce : trovati.entrySet()) {
+            perChiaveMinuscola.put(voce.getKey().toLowerCase(Locale.ROOT), voce.getValue());
+        }
+        Map<String, V> ret = new HashMap<>();
+        for (String chiave : richieste) {
+            V trovato = perChiaveMinuscola.get(chiave.toLowerCase(Locale.ROOT));
+            if (trovato != null) {
+                ret.put(chiave, trovato);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Sostituisce le chiavi in attesa con un nuovo blocco vuoto; va invocato tenendo il lock del caricatore.
+     *
+     * @return chiavi in attesa con i relativi risultati
+     */
+    private Blocco<K, V> estraiInAttesa() {
+        Blocco<K, V> blocco = new Blocco<>(inAttesa, scritturaInAttesa);
+        inAttesa = new LinkedHashMap<>();
+        scritturaInAttesa = 0;
+        return blocco;
+    }
+
+    /**
+     * Legge un blocco di chiavi sul thread corrente e completa i risultati, anche quelli attesi da altri thread.
+     *
+     * @param blocco chiavi da leggere con i relativi risultati
+     */
+    private void leggi(Blocco<K, V> blocco) {
+        try {
+            Map<K, V> trovati = DBManager.conUltimaScrittura(blocco.scrittura(),
+                    () -> caricamento.carica(new ArrayList<>(blocco.risultati().keySet())));
+            for (Map.Entry<K, CompletableFuture<V>> voce : blocco.risultati().entrySet()) {
+                voce.getValue().complete(trovati.get(voce.getKey()));
+            }
+        } catch (Throwable e) {
+            for (CompletableFuture<V> risultato : blocco.risultati().values()) {
+                risultato.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Attende il risultato di una chiave, sollevando l'eccezione della lettura del blocco senza avvolgerla.
+     *
+     * @param risultato risultato della chiave
+     * @return oggetto trovato, oppure {@code null} se non esiste
+     * @throws ClassNotFoundException se il driver del database non è disponibile
+     * @throws SQLException           in caso di errore nella lettura del blocco
+     */
+    private V attendi(CompletableFuture<V> risultato) throws ClassNotFoundException, SQLException {
+        try {
+            return risultato.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof SQLException errore) {
+                throw errore;
+            }
+            if (causa instanceof ClassNotFoundException errore) {
+                throw errore;
+            }
+            if (causa instanceof RuntimeException errore) {
+                throw errore;
+            }
+            if (causa instanceof Error errore) {
+                throw errore;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package database;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Traduce le chiavi naturali di studenti, task didattici e classi virtuali nelle rispettive chiavi surrogate intere.
+ * <p>
+ * Le tabelle associative ({@code profilo_personale}, {@code attivita}, {@code riconoscimento}) e i riferimenti
+ * alla classe virtuale usano la colonna {@code Id} intera al posto dell'indirizzo email, del titolo o del codice
+ * univoco, così che indici e join lavorino su chiavi di 4 byte. I DAO continuano a ricevere le chiavi naturali
+ * e le traducono con questa classe: la prima richiesta di una chiave legge l'{@code Id} dall'indice univoco,
+ * le successive lo trovano in memoria.
+ * <p>
+ * Le chiavi naturali non vengono mai modificate e le righe non vengono mai cancellate, quindi una traduzione
+ * resta valida per tutta l'esecuzione. Le chiavi inesistenti non vengono memorizzate, e nemmeno quelle lette
+ * durante una transazione, che potrebbe ancora essere annullata insieme alla riga appena inserita.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+public final class ChiaviSurrogate {
+    private static final ConcurrentHashMap<String, Integer> studenti = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Integer> task = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Integer> classi = new ConcurrentHashMap<>();
+
+    private ChiaviSurrogate() {
+    }
+
+    /**
+     * Restituisce la chiave surrogata dello studente.
+     *
+     * @param email indirizzo email istituzionale dello studente
+     * @return {@code Id} dello studente, oppure {@code null} se non esiste
+     * @throws ClassNotFoundException se il driver del database non è disponibile
+     * @throws SQLException           in caso di errore di accesso al database
+     */
+    static Integer studente(String email) throws ClassNotFoundException, SQLException {
+        return risolvi(studenti, "SELECT Id FROM studente WHERE IndirizzoEmailIstituzionale = ?", email);
+    }
+
+    /**
+     * Restituisce la chiave surrogata del task didattico.
+     *
+     * @param titolo titolo del task
+     * @return {@code Id} del task, oppure {@code null} se non esiste
+     * @throws ClassNotFoundException se il driver del database non è disponibile
+     * @throws SQLException           in caso di errore di accesso al database
+     */
+    static Integer task(String titolo) throws ClassNotFoundException, SQLException {
+        return risolvi(task, "SELECT Id FROM task_didattico WHERE Titolo = ?", titolo);
+    }
+
+    /**
+     * Restituisce la chiave surrogata della classe virtuale.
+     *
+     * @param codice codice univoco della classe
+     * @return {@code Id} della classe, oppure {@code null} se non esiste
+     * @throws ClassNotFoundException se il driver del database non è disponibile
+     * @throws SQLException           in caso di errore di accesso al database
+     */
+    static Integer classe(String codice) throws ClassNotFoundException, SQLException {
+        return risolvi(classi, "SELECT Id FROM classe_virtuale WHERE CodiceUnivoco = ?", codice);
+    }
+
+    /**
+     * Dimentica tutte le traduzioni memorizzate, ad esempio dopo aver ricreato il database.
+     */
+    public static void svuota() {
+        studenti.clear();
+        task.clear();
+        classi.clear();
+    }
+
+    /**
+     * Cerca la chiave naturale nella mappa e, se assente, la legge dal database con la query indicata.
+     *
+     * @param mappa  traduzioni già note della tabella
+     * @param query  lettura dell'{@code Id} a partire dalla chiave naturale
+     * @param chiave chiave naturale da tradurre
+     * @return chiave surrogata, oppure {@code null} se la chiave naturale è {@code null} o non esiste
+     * @throws ClassNotFoundException se il driver del database non è disponibile
+     * @throws SQLException           in caso di errore di accesso al database
+     */
+    private static Integer risolvi(ConcurrentHashMap<String, Integer> mappa, String query, String chiave)
+            throws ClassNotFoundException, SQLException {
+        if (chiave == null) {
+            return null;
+        }
+        Integer id = mappa.get(chiave);
+        if (id != null) {
+            return id;
+        }
+        id = DBManager.selectFirst(query, rs -> rs.getInt(1), chiave);
+        if (id != null && !DBManager.inTransazione()) {
+            mappa.putIfAbsent(chiave, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,101 @@
+package database;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Interruttore di circuito sulle connessioni al database primario, utilizzato da {@link DBManager}.
+ * <p>
+ * Conta gli errori consecutivi dovuti a un database irraggiungibile o bloccato (timeout, connessione
+ * rifiutata o caduta). Raggiunta la {@code sogliaErrori} il circuito si apre: per {@code durataAperturaMillis}
+ * ogni richiesta fallisce subito con {@link DatabaseNonDisponibileException}, senza attendere il server.
+ * Trascorso questo tempo il circuito è semiaperto: una sola richiesta di prova raggiunge il database e,
+ * a seconda del suo esito, il circuito si richiude oppure si riapre.
+ * <p>
+ * Gli errori per cui il server ha comunque risposto (ad esempio una chiave duplicata) indicano un
+ * database raggiungibile e vengono contati come successi.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+class CircuitBreaker {
+    private enum Stato { CHIUSO, APERTO, SEMI_APERTO }
+
+    private final int sogliaErrori;
+    private final long durataAperturaMillis;
+
+    private volatile Stato stato = Stato.CHIUSO;
+    private volatile int erroriConsecutivi;
+    //istante di apertura del circuito, o di inizio della richiesta di prova se semiaperto
+    private long apertoDa;
+
+    /**
+     * @param sogliaErrori         errori consecutivi dopo i quali il circuito si apre
+     * @param durataAperturaMillis tempo per cui il circuito resta aperto prima di tentare una richiesta di prova
+     */
+    CircuitBreaker(int sogliaErrori, long durataAperturaMillis) {
+        this.sogliaErrori = sogliaErrori;
+        this.durataAperturaMillis = durataAperturaMillis;
+    }
+
+    /**
+     * Verifica che una richiesta possa raggiungere il database.
+     * Se il circuito è aperto da almeno {@code durataAperturaMillis} la richiesta diventa quella di prova;
+     * una prova rimasta senza esito viene sostituita dopo un altro intervallo.
+     *
+     * @throws DatabaseNonDisponibileException se il circuito è aperto, oppure semiaperto con una prova in corso
+     */
+    synchronized void verifica() {
+        if (stato == Stato.CHIUSO) {
+            return;
+        }
+        long adesso = System.currentTimeMillis();
+        if (adesso - apertoDa < durataAperturaMillis) {
+            throw new DatabaseNonDisponibileException();
+        }
+        stato = Stato.SEMI_APERTO;
+        apertoDa = adesso;
+    }
+
+    /**
+     * Registra una richiesta a cui il database ha risposto, richiudendo il circuito.
+     */
+    void registraSuccesso() {
+        //evita la sincronizzazione nel caso comune di circuito chiuso e senza errori
+        if (stato == Stato.CHIUSO && erroriConsecutivi == 0) {
+            return;
+        }
+        synchronized (this) {
+            stato = Stato.CHIUSO;
+            erroriConsecutivi = 0;
+        }
+    }
+
+    /**
+     * Registra una richiesta fallita perché il database non era raggiungibile.
+     * Apre il circuito se la richiesta era quella di prova o se è stata raggiunta la soglia.
+     */
+    synchronized void registraErrore() {
+        erroriConsecutivi++;
+        if (stato == Stato.SEMI_APERTO || erroriConsecutivi >= sogliaErrori) {
+            stato = Stato.APERTO;
+            apertoDa = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Indica se l'errore è dovuto a un database irraggiungibile o che non ha risposto in tempo,
+     * e non a un errore nella singola query.
+     *
+     * @param e errore sollevato dal driver o dal pool
+     * @return true per timeout ed errori di connessione (SQLState di classe 08)
+     */
+    static boolean isErroreDiConnessione(SQLException e) {
+        String sqlState = e.getSQLState();
+        return e instanceof SQLTimeoutException
+                || e instanceof SQLTransientConnectionException
+                || e instanceof SQLNonTransientConnectionException
+                || (sqlState != null && sqlState.startsWith("08"));
+    }
+}
@@ -1,6 +1,5 @@
 package database;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
@@ -39,16 +38,14 @@ public class ClasseVirtualeDAO {
      *         {@code -1} in caso di eccezione SQL o errore di connessione
      */
     public int caricaDaDB() {
-        String query = "SELECT * FROM classe_virtuale WHERE CodiceUnivoco = " + "'" + this.codiceUnivoco + "'";
+        String query = "SELECT CodiceUnivoco, Nome FROM classe_virtuale WHERE CodiceUnivoco = ?";
         try {
-            ResultSet rs = DBManager.selectQuery(query);
-            if (rs.next()) {
+            ClasseVirtualeDAO trovata = DBManager.selectFirst(query, rs -> {
                 this.setCodiceUnivoco(rs.getString("CodiceUnivoco"));
                 this.setNome(rs.getString("Nome"));
-                return  1;
-            } else {
-                return  0;
-            }
+                return this;
+            }, this.codiceUnivoco);
+            return (trovata != null) ? 1 : 0;
         } catch (ClassNotFoundException | SQLException e) {
             e.printStackTrace();
             return  -1;
@@ -67,22 +64,19 @@ public class ClasseVirtualeDAO {
      */
     public ArrayList<ClasseVirtualeDAO> getListaClassiDelDocente(String emailDocente) {
 
-        ArrayList<ClasseVirtualeDAO> listaClassi = new ArrayList<>();
-        String query = "SELECT * FROM classe_virtuale WHERE docente_IndirizzoEmailIstituzionale = '"+ emailDocente + "'";
+        String query = "SELECT CodiceUnivoco, Nome FROM classe_virtuale WHERE docente_IndirizzoEmailIstituzionale = ?";
         try{
-            ResultSet rs = DBManager.selectQuery(query);
-            while (rs.next()){
+            return DBManager.selectList(query, rs -> {
                 ClasseVirtualeDAO classe = new ClasseVirtualeDAO();
 
-                classe.setCodiceUnivoco(rs.getString("CodiceUnivoco"));
-                classe.setNome(rs.getString("Nome"));
-                listaClassi.add(classe);
-            }
+                classe.setCodiceUnivoco(rs.getString(1));
+                classe.setNome(rs.getString(2));
+                return classe;
+            }, emailDocente);
         } catch (SQLException | ClassNotFoundException e) {
             e.printStackTrace();
             return null;
         }
-        return listaClassi;
     }
 
     /**
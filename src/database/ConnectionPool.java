@@ -0,0 +1,595 @@
+package database;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Pool di connessioni JDBC utilizzato da {@link DBManager}.
+ * <p>
+ * Mantiene un insieme di connessioni fisiche già aperte verso il database, in modo che
+ * ogni query non debba ripetere l'handshake con il server MySQL. Il pool:
+ * -mantiene aperte almeno {@code dimensioneMinima} connessioni e non ne apre mai più di {@code dimensioneMassima}
+ * -chiude le connessioni inutilizzate da più di {@code tempoMassimoInattivita} millisecondi
+ * -verifica la validità di ogni connessione prima di consegnarla al chiamante
+ * -attende al massimo {@code tempoMassimoAttesa} millisecondi una connessione libera, poi solleva una {@link SQLTimeoutException}
+ * <p>
+ * Le connessioni restituite sono dei proxy: invocare {@link Connection#close()} le riconsegna al pool
+ * invece di chiuderle fisicamente.
+ * <p>
+ * Ogni connessione fisica mantiene inoltre una cache LRU di al più {@code dimensioneCacheStatement}
+ * {@link PreparedStatement}: {@link Connection#prepareStatement(String)} restituisce lo statement già
+ * preparato per lo stesso testo SQL, e la sua {@code close()} lo rimette in cache senza deallocarlo
+ * sul server. Ogni prestito di uno statement riceve un proxy proprio, che smette di funzionare quando il prestito
+ * termina; gli statement non chiusi dal chiamante vengono restituiti alla riconsegna della connessione.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+class ConnectionPool implements DataSource {
+    private final String url;
+    private final String userName;
+    private final String password;
+    private final int dimensioneMinima;
+    private final long tempoMassimoInattivita;
+    private final long tempoMassimoAttesa;
+    private final int secondiValidazione;
+    private final int dimensioneCacheStatement;
+
+    //connessioni fisiche aperte ma non in uso, la più recente in testa
+    private final Deque<ConnessioneFisica> libere = new ArrayDeque<>();
+    //un permesso per ogni connessione che può ancora essere consegnata
+    private final Semaphore permessi;
+    private final ScheduledExecutorService manutenzione;
+    private int aperte;
+    private boolean chiuso;
+
+    /**
+     * Crea il pool e apre subito le connessioni minime richieste.
+     *
+     * @param url                    url JDBC completo del database
+     * @param userName               nome utente per l'accesso
+     * @param password               password per l'accesso
+     * @param dimensioneMinima       numero di connessioni da tenere sempre aperte
+     * @param dimensioneMassima      numero massimo di connessioni aperte contemporaneamente
+     * @param tempoMassimoInattivita millisecondi dopo i quali una connessione libera viene chiusa
+     * @param tempoMassimoAttesa     millisecondi di attesa massima per ottenere una connessione
+     * @param secondiValidazione     secondi concessi alla verifica di validità di una connessione
+     * @param dimensioneCacheStatement numero massimo di statement preparati tenuti in cache per connessione,
+     *                               0 per disattivare la cache
+     */
+    ConnectionPool(String url, String userName, String password, int dimensioneMinima, int dimensioneMassima,
+                   long tempoMassimoInattivita, long tempoMassimoAttesa, int secondiValidazione,
+                   int dimensioneCacheStatement) {
+        if (dimensioneMinima < 0 || dimensioneMassima < 1 || dimensioneMinima > dimensioneMassima) {
+            throw new IllegalArgumentException("Dimensioni del pool non valide: min=" + dimensioneMinima + " max=" + dimensioneMassima);
+        }
+        this.url = url;
+        this.userName = userName;
+        this.password = password;
+        this.dimensioneMinima = dimensioneMinima;
+        this.tempoMassimoInattivita = tempoMassimoInattivita;
+        this.tempoMassimoAttesa = tempoMassimoAttesa;
+        this.secondiValidazione = secondiValidazione;
+        this.dimensioneCacheStatement = dimensioneCacheStatement;
+        this.permessi = new Semaphore(dimensioneMassima, true);
+
+        this.manutenzione = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-manutenzione");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1000, tempoMassimoInattivita / 2);
+        this.manutenzione.scheduleWithFixedDelay(this::eseguiManutenzione, periodo, periodo, TimeUnit.MILLISECONDS);
+
+        riempiFinoAlMinimo();
+    }
+
+    /**
+     * Restituisce una connessione valida, riutilizzandone una libera oppure aprendone una nuova.
+     *
+     * @return connessione del pool, da chiudere con {@link Connection#close()} al termine dell'uso
+     * @throws SQLTimeoutException se nessuna connessione si libera entro il tempo massimo di attesa
+     * @throws SQLException        in caso di errore nell'apertura della connessione
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        boolean ottenuto;
+        try {
+            ottenuto = permessi.tryAcquire(tempoMassimoAttesa, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrotto durante l'attesa di una connessione", e);
+        }
+        if (!ottenuto) {
+            throw new SQLTimeoutException("Nessuna connessione disponibile entro " + tempoMassimoAttesa + " ms");
+        }
+
+        try {
+            ConnessioneFisica fisica = prendiLiberaValida();
+            if (fisica == null) {
+                fisica = apriConnessione();
+            }
+            return fisica.creaProxy();
+        } catch (SQLException | RuntimeException e) {
+            permessi.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Indica se la connessione è stata consegnata da questo pool.
+     *
+     * @param connessione connessione da verificare, anche già riconsegnata
+     * @return {@code true} se è un proxy di questo pool
+     */
+    boolean haConsegnato(Connection connessione) {
+        return connessione != null && Proxy.isProxyClass(connessione.getClass())
+                && Proxy.getInvocationHandler(connessione) instanceof Prestito prestito && prestito.pool() == this;
+    }
+
+    /**
+     * Chiude tutte le connessioni libere e impedisce ulteriori prestiti.
+     * Le connessioni ancora in uso vengono chiuse fisicamente alla loro riconsegna.
+     */
+    void chiudi() {
+        manutenzione.shutdownNow();
+        synchronized (this) {
+            chiuso = true;
+            for (ConnessioneFisica fisica : libere) {
+                chiudiFisica(fisica);
+            }
+            libere.clear();
+        }
+    }
+
+    /**
+     * Estrae dalla coda una connessione libera che superi la validazione,
+     * scartando quelle non più valide.
+     *
+     * @return connessione valida oppure {@code null} se non ce ne sono di libere
+     */
+    private ConnessioneFisica prendiLiberaValida() {
+        while (true) {
+            ConnessioneFisica fisica;
+            synchronized (this) {
+                if (chiuso) {
+                    throw new IllegalStateException("Il pool di connessioni è stato chiuso");
+                }
+                fisica = libere.pollFirst();
+            }
+            if (fisica == null) {
+                return null;
+            }
+            if (fisica.isValida()) {
+                return fisica;
+            }
+            chiudiFisica(fisica);
+        }
+    }
+
+    /**
+     * Apre una nuova connessione fisica verso il database.
+     *
+     * @return connessione fisica appena aperta
+     * @throws SQLException in caso di errore del driver
+     */
+    private ConnessioneFisica apriConnessione() throws SQLException {
+        Connection reale = DriverManager.getConnection(url, userName, password);
+        synchronized (this) {
+            aperte++;
+        }
+        return new ConnessioneFisica(reale);
+    }
+
+    /**
+     * Riconsegna al pool una connessione fisica, ripristinandone lo stato di default.
+     *
+     * @param fisica connessione da riconsegnare
+     */
+    private void riconsegna(ConnessioneFisica fisica) {
+        try {
+            boolean riutilizzabile = fisica.ripristina();
+            synchronized (this) {
+                if (riutilizzabile && !chiuso) {
+                    fisica.ultimoUtilizzo = System.currentTimeMillis();
+                    libere.addFirst(fisica);
+                    return;
+                }
+            }
+            chiudiFisica(fisica);
+        } finally {
+            permessi.release();
+        }
+    }
+
+    /**
+     * Chiude fisicamente una connessione ignorando eventuali errori.
+     *
+     * @param fisica connessione da chiudere
+     */
+    private void chiudiFisica(ConnessioneFisica fisica) {
+        synchronized (this) {
+            aperte--;
+        }
+        try {
+            fisica.reale.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Chiude le connessioni libere inattive da troppo tempo e riapre quelle
+     * necessarie a rispettare la dimensione minima del pool.
+     */
+    private void eseguiManutenzione() {
+        long limite = System.currentTimeMillis() - tempoMassimoInattivita;
+        synchronized (this) {
+            //le connessioni meno recenti sono in coda
+            Iterator<ConnessioneFisica> it = libere.descendingIterator();
+            while (it.hasNext() && aperte > dimensioneMinima) {
+                ConnessioneFisica fisica = it.next();
+                if (fisica.ultimoUtilizzo >= limite) {
+                    break;
+                }
+                it.remove();
+                aperte--;
+                try {
+                    fisica.reale.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        riempiFinoAlMinimo();
+    }
+
+    /**
+     * Apre connessioni libere finché il pool non raggiunge la dimensione minima.
+     */
+    private void riempiFinoAlMinimo() {
+        while (true) {
+            synchronized (this) {
+                if (chiuso || aperte >= dimensioneMinima) {
+                    return;
+                }
+            }
+            try {
+                ConnessioneFisica fisica = apriConnessione();
+                fisica.ultimoUtilizzo = System.currentTimeMillis();
+                synchronized (this) {
+                    libere.addFirst(fisica);
+                }
+            } catch (SQLException e) {
+                //il database non è raggiungibile: si riproverà alla prossima manutenzione
+                e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Connessione fisica verso il database gestita dal pool.
+     */
+    private final class ConnessioneFisica {
+        private final Connection reale;
+        private long ultimoUtilizzo;
+        //statement preparati indicizzati per testo SQL, in ordine di accesso (LRU)
+        private final Map<String, StatementInCache> cacheStatement = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StatementInCache> eldest) {
+                if (size() <= dimensioneCacheStatement) {
+                    return false;
+                }
+                eldest.getValue().espelli();
+                return true;
+            }
+        };
+        //statement della cache attualmente prestati, compresi quelli già espulsi; concorrente perché anche
+        //un proxy rimasto a un chiamante precedente può terminare il proprio prestito
+        private final Set<StatementInCache> prestati = ConcurrentHashMap.newKeySet();
+
+        private ConnessioneFisica(Connection reale) {
+            this.reale = reale;
+        }
+
+        /**
+         * Restituisce lo statement preparato per il testo SQL indicato, prendendolo dalla cache
+         * se disponibile. Se lo statement in cache è già in uso viene preparato uno statement
+         * ordinario, non condiviso.
+         *
+         * @param sql   testo SQL con eventuali segnaposto {@code ?}
+         * @param proxy connessione consegnata al chiamante
+         * @return statement pronto per l'impostazione dei parametri
+         * @throws SQLException in caso di errore del driver
+         */
+        private PreparedStatement prepara(String sql, Connection proxy) throws SQLException {
+            if (dimensioneCacheStatement <= 0) {
+                return reale.prepareStatement(sql);
+            }
+            StatementInCache inCache = cacheStatement.get(sql);
+            if (inCache == null) {
+                inCache = new StatementInCache(reale.prepareStatement(sql), prestati);
+                cacheStatement.put(sql, inCache);
+            } else if (inCache.isPrestato()) {
+                return reale.prepareStatement(sql);
+            }
+            return inCache.presta(proxy);
+        }
+
+        private boolean isValida() {
+            try {
+                return reale.isValid(secondiValidazione);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Restituisce alla cache gli statement che il chiamante non ha chiuso e annulla eventuali transazioni
+         * lasciate aperte.
+         *
+         * @return {@code true} se la connessione può tornare tra quelle libere
+         */
+        private boolean ripristina() {
+            try {
+                for (StatementInCache statement : new ArrayList<>(prestati)) {
+                    statement.restituisci(null);
+                }
+                if (reale.isClosed()) {
+                    return false;
+                }
+                if (!reale.getAutoCommit()) {
+                    reale.rollback();
+                    reale.setAutoCommit(true);
+                }
+                reale.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private Connection creaProxy() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, new Prestito(this));
+        }
+    }
+
+    /**
+     * Statement preparato conservato nella cache di una connessione fisica.
+     * Ogni prestito consegna al chiamante un nuovo proxy, gestito da un {@link PrestitoStatement}:
+     * solo il proxy del prestito in corso può usare lo statement, così che un chiamante che conserva
+     * un proxy già chiuso non possa chiudere o eseguire lo statement prestato a un altro.
+     */
+    private static final class StatementInCache {
+        private final PreparedStatement reale;
+        //statement prestati della connessione fisica, a cui lo statement appartiene finché è in prestito
+        private final Set<StatementInCache> prestati;
+        //prestito in corso, null se lo statement è libero
+        private PrestitoStatement prestito;
+        private boolean espulso;
+
+        private StatementInCache(PreparedStatement reale, Set<StatementInCache> prestati) {
+            this.reale = reale;
+            this.prestati = prestati;
+        }
+
+        private synchronized boolean isPrestato() {
+            return prestito != null;
+        }
+
+        private synchronized PreparedStatement presta(Connection connessione) {
+            prestito = new PrestitoStatement(this, connessione);
+            prestati.add(this);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, prestito);
+        }
+
+        /**
+         * Verifica che il prestito indicato sia quello in corso.
+         *
+         * @param daVerificare prestito del proxy utilizzato
+         * @return {@code true} se il proxy può ancora usare lo statement
+         */
+        private synchronized boolean isPrestitoInCorso(PrestitoStatement daVerificare) {
+            return prestito == daVerificare;
+        }
+
+        /**
+         * Termina il prestito in corso: ripulisce i parametri e rende lo statement nuovamente disponibile,
+         * oppure lo chiude se nel frattempo è stato espulso dalla cache.
+         *
+         * @param daTerminare prestito da terminare, {@code null} per terminare quello in corso qualunque sia
+         * @throws SQLException in caso di errore nella pulizia dei parametri
+         */
+        private synchronized void restituisci(PrestitoStatement daTerminare) throws SQLException {
+            if (prestito == null || (daTerminare != null && prestito != daTerminare)) {
+                return;
+            }
+            prestito = null;
+            prestati.remove(this);
+            if (espulso) {
+                chiudiReale();
+            } else {
+                reale.clearParameters();
+            }
+        }
+
+        /**
+         * Rimuove lo statement dalla cache: viene chiuso subito se libero,
+         * altrimenti al termine del prestito.
+         */
+        private synchronized void espelli() {
+            espulso = true;
+            if (prestito == null) {
+                chiudiReale();
+            }
+        }
+
+        private void chiudiReale() {
+            try {
+                reale.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Gestore del proxy consegnato con un singolo prestito di uno {@link StatementInCache}.
+     * Dopo la fine del prestito il proxy risulta chiuso, anche se lo statement è stato prestato di nuovo.
+     */
+    private static final class PrestitoStatement implements InvocationHandler {
+        private final StatementInCache statement;
+        private final Connection connessione;
+
+        private PrestitoStatement(StatementInCache statement, Connection connessione) {
+            this.statement = statement;
+            this.connessione = connessione;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    statement.restituisci(this);
+                    return null;
+                case "isClosed":
+                    return !statement.isPrestitoInCorso(this) || statement.reale.isClosed();
+                case "getConnection":
+                    return connessione;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (!statement.isPrestitoInCorso(this)) {
+                        throw new SQLException("Lo statement è già stato chiuso");
+                    }
+                    try {
+                        return method.invoke(statement.reale, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    /**
+     * Gestore del proxy consegnato al chiamante: intercetta {@code close()} per riconsegnare
+     * la connessione, serve {@code prepareStatement(String)} dalla cache degli statement
+     * e impedisce l'uso della connessione dopo la riconsegna.
+     */
+    private final class Prestito implements InvocationHandler {
+        private final ConnessioneFisica fisica;
+        private boolean riconsegnata;
+
+        private Prestito(ConnessioneFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        private ConnectionPool pool() {
+            return ConnectionPool.this;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!riconsegnata) {
+                        riconsegnata = true;
+                        riconsegna(fisica);
+                    }
+                    return null;
+                case "isClosed":
+                    return riconsegnata || fisica.reale.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConnessionePool[" + fisica.reale + "]";
+                default:
+                    if (riconsegnata) {
+                        throw new SQLException("La connessione è già stata riconsegnata al pool");
+                    }
+                    if (method.getName().equals("prepareStatement") && args.length == 1) {
+                        return fisica.prepara((String) args[0], (Connection) proxy);
+                    }
+                    try {
+                        return method.invoke(fisica.reale, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    // Metodi richiesti da DataSource
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Il pool utilizza credenziali fisse");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return DriverManager.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        DriverManager.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Il pool non implementa " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -1,10 +1,37 @@
 package database;
 
+import dto.PaginaDTO;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DBManager {
 
@@ -12,73 +39,943 @@ public class DBManager {
     public static String urL="jdbc:mysql://localhost:3306/";
     public static String dbName="sistema_gestionale_di_task_didattici_con_badge";
     public static String driver="com.mysql.cj.jdbc.Driver";
+    //statement preparati lato server, la cache è gestita dal pool; cursori lato server per le letture in streaming;
+    //tempi massimi per aprire la connessione e per attendere una risposta dal server;
+    //i batch di INSERT vengono riscritti in un'unica INSERT multi-riga
+    public static String parametriConnessione="?useServerPrepStmts=true&cachePrepStmts=false&useCursorFetch=true&connectTimeout=5000&socketTimeout=60000&rewriteBatchedStatements=true";
     //Nome e password per l'accesso
     public static String userName="root";
     public static String password="5s(37kjU$71z";
+    //database H2 eseguito nell'applicazione al posto del server MySQL, creato da scriptCreazione se non ha ancora le tabelle;
+    //con percorsoDatabaseIncorporato null resta in memoria, altrimenti viene salvato in quel file (senza estensione);
+    //si attiva all'avvio con la proprietà di sistema databaseIncorporato=true o la variabile d'ambiente DATABASE_INCORPORATO=true
+    private static final boolean databaseIncorporato=Boolean.parseBoolean(
+            System.getProperty("databaseIncorporato", System.getenv("DATABASE_INCORPORATO")));
+    public static String percorsoDatabaseIncorporato=null;
+    public static String driverIncorporato="org.h2.Driver";
+    public static String scriptCreazione="ScriptDB.sql";
+    //Parametri del pool di connessioni, letti alla prima richiesta di connessione
+    public static int dimensioneMinimaPool=2;
+    public static int dimensioneMassimaPool=10;
+    public static long tempoMassimoInattivitaMillis=5*60*1000;
+    public static long tempoMassimoAttesaConnessioneMillis=5000;
+    public static int secondiValidazioneConnessione=2;
+    public static int dimensioneCacheStatement=64;
+    //righe lette per ogni round trip dalle letture in streaming
+    public static int dimensioneFetch=500;
+    //righe inviate al server con ogni executeBatch dalle scritture in blocco
+    public static int dimensioneBatch=1000;
+    //Repliche in sola lettura (es. "jdbc:mysql://replica1:3306/"), vuoto per leggere solo dal primario
+    public static String[] urlRepliche={};
+    public static long ritardoMassimoReplicheSecondi=2;
+    public static long periodoControlloReplicheMillis=2000;
+    //dopo una scrittura il thread legge dal primario per questo intervallo (read-your-writes)
+    public static long finestraLetturaDalPrimarioMillis=5000;
+    //tempo massimo di esecuzione di ogni statement, deve restare inferiore al socketTimeout
+    public static int timeoutQuerySecondi=10;
+    //errori di connessione consecutivi che aprono il circuito, e per quanto tempo resta aperto
+    public static int sogliaErroriCircuito=5;
+    public static long durataAperturaCircuitoMillis=30000;
+    //le query che durano almeno questo tempo vengono scritte nel log delle query lente
+    public static long sogliaQueryLenteMillis=500;
+    //chiavi lette al più con ogni query IN (...) dei caricatori in blocco
+    public static int dimensioneBloccoChiavi=500;
+
+    //clausole che selectPagina aggiunge alla selezione, e che quindi la selezione non può contenere
+    private static final Pattern CLAUSOLE_PAGINA = Pattern.compile("(?i)\\b(WHERE|GROUP\\s+BY|HAVING|ORDER\\s+BY|LIMIT)\\b");
+    private static ConnectionPool pool;
+    //volatile: letto senza lock per classificare gli errori delle letture
+    private static volatile ReplicaRouter repliche;
+    private static CircuitBreaker circuito;
+    private static final StatisticheQuery statistiche = new StatisticheQuery();
+    //un virtual thread per ogni attività asincrona, con al più dimensioneMassimaPool attività sul database alla volta
+    private static ExecutorService esecutoreAsincrono;
+    private static Semaphore permessiAsincroni;
+    //true sul thread di un'attività asincrona: le attività che avvia vengono eseguite sul suo stesso thread
+    private static final ThreadLocal<Boolean> inAttivitaAsincrona = ThreadLocal.withInitial(() -> false);
+    //istante dell'ultima scrittura confermata dal thread corrente, 0 se assente; le attività asincrone
+    //condividono l'oggetto del thread che le ha avviate, così che le loro scritture valgano anche per lui
+    private static final ThreadLocal<AtomicLong> ultimaScrittura = ThreadLocal.withInitial(AtomicLong::new);
+    //transazione aperta dal thread corrente con eseguiInTransazione, null se assente
+    private static final ThreadLocal<Transazione> transazioneCorrente = new ThreadLocal<>();
+
+    /**
+     * Restituisce il pool di connessioni, creandolo alla prima invocazione
+     * con i parametri configurati nelle variabili membro.
+     * Con {@link #databaseIncorporato} il pool si collega al database H2 dell'applicazione,
+     * che viene creato da {@link #scriptCreazione} se non ha ancora le tabelle.
+     * @return pool di connessioni
+     * @throws ClassNotFoundException
+     * @throws SQLException se non è possibile creare il database incorporato
+     */
+    public static synchronized DataSource getDataSource() throws ClassNotFoundException, SQLException {
+        if (pool == null) {
+            String url;
+            if (databaseIncorporato) {
+                Class.forName(driverIncorporato);
+                url = DatabaseIncorporato.url(dbName, percorsoDatabaseIncorporato);
+            } else {
+                Class.forName(driver);
+                url = urL+dbName+parametriConnessione;
+            }
+            ConnectionPool nuovo = new ConnectionPool(url, userName, password, dimensioneMinimaPool, dimensioneMassimaPool,
+                    tempoMassimoInattivitaMillis, tempoMassimoAttesaConnessioneMillis, secondiValidazioneConnessione,
+                    dimensioneCacheStatement);
+            if (databaseIncorporato) {
+                try {
+                    if (DatabaseIncorporato.creaSeAssente(nuovo, scriptCreazione)) {
+                        ChiaviSurrogate.svuota();
+                    }
+                } catch (SQLException e) {
+                    nuovo.chiudi();
+                    throw e;
+                }
+            }
+            pool = nuovo;
+        }
+        return pool;
+    }
+
+    /**
+     * Restituisce l'instradatore delle letture verso le repliche, creandolo alla prima invocazione
+     * a partire da {@link #urlRepliche}.
+     * @return instradatore delle repliche, senza repliche se non ne sono configurate
+     * @throws ClassNotFoundException
+     */
+    private static synchronized ReplicaRouter getRepliche() throws ClassNotFoundException {
+        if (repliche == null) {
+            //il database incorporato non ha repliche
+            String[] url = databaseIncorporato ? new String[0] : urlRepliche;
+            if (url.length > 0) {
+                Class.forName(driver);
+            }
+            List<ConnectionPool> pools = new ArrayList<>();
+            for (String urlReplica : url) {
+                pools.add(new ConnectionPool(urlReplica+dbName+parametriConnessione, userName, password, dimensioneMinimaPool, dimensioneMassimaPool,
+                        tempoMassimoInattivitaMillis, tempoMassimoAttesaConnessioneMillis, secondiValidazioneConnessione,
+                        dimensioneCacheStatement));
+            }
+            repliche = new ReplicaRouter(pools, ritardoMassimoReplicheSecondi, periodoControlloReplicheMillis);
+        }
+        return repliche;
+    }
+
+    /**
+     * Restituisce l'interruttore di circuito del primario, creandolo alla prima invocazione.
+     * @return interruttore di circuito
+     */
+    private static synchronized CircuitBreaker getCircuito() {
+        if (circuito == null) {
+            circuito = new CircuitBreaker(sogliaErroriCircuito, durataAperturaCircuitoMillis);
+        }
+        return circuito;
+    }
+
+    /**
+     * Restituisce l'esecutore delle attività asincrone, creandolo alla prima invocazione
+     * insieme ai permessi che ne limitano la concorrenza alla dimensione massima del pool.
+     * @return esecutore che avvia un virtual thread per ogni attività
+     */
+    private static synchronized ExecutorService getEsecutoreAsincrono() {
+        if (esecutoreAsincrono == null) {
+            permessiAsincroni = new Semaphore(dimensioneMassimaPool, true);
+            esecutoreAsincrono = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-async-", 0).factory());
+        }
+        return esecutoreAsincrono;
+    }
+
+    /**
+     * Chiude il pool di connessioni e quelli delle repliche; una successiva richiesta di connessione ne crea di nuovi.
+     */
+    public static synchronized void chiudiPool() {
+        if (pool != null) {
+            pool.chiudi();
+            pool = null;
+        }
+        if (repliche != null) {
+            repliche.chiudi();
+            repliche = null;
+        }
+    }
 
     /**
-     * Metodo che crea la connessione dal driver
+     * Metodo che preleva una connessione dal pool del primario
      * @return connessione
      * @throws ClassNotFoundException
      * @throws SQLException
+     * @throws DatabaseNonDisponibileException se il circuito è aperto, se nessuna connessione si libera entro
+     *         il tempo massimo di attesa o se il database non è raggiungibile
      */
     public static Connection getConnection() throws ClassNotFoundException, SQLException {
-        //creo oggetto connection
-        Connection conn=null;
-        Class.forName(driver);
-        //ottengo la connessione dal DriverManager passando come parametri le credenziali e il nome del db
-        conn= DriverManager.getConnection(urL+dbName,userName,password);
-        return conn;
+        getCircuito().verifica();
+        try {
+            return getDataSource().getConnection();
+        } catch (SQLException e) {
+            throw registraErrore(e);
+        }
     }
 
     /**
-     * Metodo che chiude la connessione con il DB
+     * Metodo che riconsegna la connessione al pool.
+     * La connessione della transazione in corso non viene riconsegnata: sarà rilasciata al suo termine.
      * @param c
      * @throws SQLException
      */
     public static void closeConnection(Connection c)throws SQLException{
-        System.out.println("Chiudo connessione...");
-        c.close();
+        rilascia(c);
+    }
+
+    /**
+     * Esegue l'unità di lavoro in un'unica transazione: tutte le query eseguite dai DAO
+     * sul thread corrente usano la stessa connessione e vengono confermate con un solo commit.
+     * <p>
+     * La transazione viene annullata se l'unità di lavoro solleva un'eccezione, se una query fallisce
+     * (anche quando il DAO intercetta l'errore e restituisce -1) oppure se viene invocato
+     * {@link #segnaPerRollback()}. Se una transazione è già in corso, l'unità di lavoro vi partecipa.
+     * @param lavoro operazioni da eseguire
+     * @return risultato dell'unità di lavoro
+     * @throws ClassNotFoundException
+     * @throws SQLException in caso di errore nell'apertura, nel commit o nel rollback della transazione
+     */
+    public static <T> T eseguiInTransazione(UnitaDiLavoro<T> lavoro) throws ClassNotFoundException, SQLException {
+        if (transazioneCorrente.get() != null) {
+            return lavoro.esegui();
+        }
+
+        Transazione transazione = new Transazione(getConnection());
+        Connection conn = transazione.connessione;
+        transazioneCorrente.set(transazione);
+        try {
+            conn.setAutoCommit(false);
+            T ret = lavoro.esegui();
+            if (transazione.soloRollback) {
+                conn.rollback();
+            } else {
+                conn.commit();
+                registraScrittura();
+            }
+            return ret;
+        } catch (Throwable e) {
+            try {
+                conn.rollback();
+            } catch (SQLException errRollback) {
+                e.addSuppressed(errRollback);
+            }
+            if (e instanceof SQLException errore) {
+                throw registraErrore(errore);
+            }
+            throw e;
+        } finally {
+            transazioneCorrente.remove();
+            try {
+                conn.setAutoCommit(true);
+            } finally {
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Esegue l'unità di lavoro su un virtual thread, senza bloccare il thread chiamante.
+     * <p>
+     * Al più {@link #dimensioneMassimaPool} attività accedono contemporaneamente al database: le altre attendono
+     * un permesso senza impegnare una connessione del pool, e se non lo ottengono entro
+     * {@link #tempoMassimoAttesaConnessioneMillis} terminano con {@link DatabaseNonDisponibileException}.
+     * <p>
+     * L'attività legge dal primario se il chiamante ha appena scritto (vedi {@link #prendiConnessioneLettura()}),
+     * e le sue scritture vengono registrate anche per il chiamante: le letture che il chiamante esegue dopo
+     * il completamento dell'attività vanno al primario, che contiene già le modifiche.
+     * Se il chiamante ha una transazione in corso, l'unità di lavoro viene eseguita subito sul suo thread,
+     * in modo da partecipare alla transazione. Lo stesso avviene se il chiamante è a sua volta un'attività asincrona:
+     * usa già un permesso, e attendere un'attività che ne richiede un altro potrebbe esaurirli.
+     * @param lavoro operazioni da eseguire
+     * @return risultato dell'unità di lavoro, completato con l'eccezione sollevata in caso di errore
+     */
+    public static <T> CompletableFuture<T> eseguiAsync(UnitaDiLavoro<T> lavoro) {
+        CompletableFuture<T> risultato = new CompletableFuture<>();
+        if (transazioneCorrente.get() != null || inAttivitaAsincrona.get()) {
+            completa(risultato, lavoro);
+            return risultato;
+        }
+
+        AtomicLong scrittura = ultimaScrittura.get();
+        ExecutorService esecutore = getEsecutoreAsincrono();
+        Semaphore permessi = permessiAsincroni;
+        esecutore.execute(() -> {
+            try {
+                if (!permessi.tryAcquire(tempoMassimoAttesaConnessioneMillis, TimeUnit.MILLISECONDS)) {
+                    risultato.completeExceptionally(new DatabaseNonDisponibileException(new SQLTimeoutException(
+                            "Nessun permesso disponibile entro " + tempoMassimoAttesaConnessioneMillis + " ms")));
+                    return;
+                }
+            } catch (InterruptedException e) {
+                risultato.completeExceptionally(e);
+                return;
+            }
+            inAttivitaAsincrona.set(true);
+            ultimaScrittura.set(scrittura);
+            try {
+                completa(risultato, lavoro);
+            } finally {
+                permessi.release();
+            }
+        });
+        return risultato;
+    }
+
+    /**
+     * Attende il risultato di un'attività avviata con {@link #eseguiAsync(UnitaDiLavoro)}.
+     * @param futuro attività da attendere
+     * @return risultato dell'attività
+     * @throws DatabaseNonDisponibileException o un'altra {@link RuntimeException}, se sollevata dall'attività
+     */
+    public static <T> T attendi(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException errore) {
+                throw errore;
+            }
+            if (causa instanceof Error errore) {
+                throw errore;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Esegue l'unità di lavoro sul thread corrente e ne riporta l'esito nel risultato.
+     * @param risultato risultato da completare
+     * @param lavoro operazioni da eseguire
+     */
+    private static <T> void completa(CompletableFuture<T> risultato, UnitaDiLavoro<T> lavoro) {
+        try {
+            risultato.complete(lavoro.esegui());
+        } catch (Throwable e) {
+            risultato.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Registra l'istante corrente come ultima scrittura confermata dal thread, e dal thread che ha avviato
+     * l'attività asincrona in corso.
+     */
+    private static void registraScrittura() {
+        ultimaScrittura.get().accumulateAndGet(System.currentTimeMillis(), Math::max);
+    }
+
+    /**
+     * Restituisce l'istante dell'ultima scrittura confermata dal thread corrente.
+     * @return istante in millisecondi, 0 se il thread non ha scritto
+     */
+    static long ultimaScrittura() {
+        return ultimaScrittura.get().get();
+    }
+
+    /**
+     * Esegue l'unità di lavoro sul thread corrente come se avesse scritto all'istante indicato, così che le sue letture
+     * seguano il read-your-writes di un altro thread (vedi {@link #prendiConnessioneLettura()}). Le scritture
+     * dell'unità di lavoro non vengono registrate per il thread corrente.
+     * @param scrittura istante dell'ultima scrittura da considerare, 0 se assente
+     * @param lavoro operazioni da eseguire
+     * @return risultato dell'unità di lavoro
+     * @throws ClassNotFoundException
+     * @throws SQLException
+     */
+    static <T> T conUltimaScrittura(long scrittura, UnitaDiLavoro<T> lavoro) throws ClassNotFoundException, SQLException {
+        AtomicLong precedente = ultimaScrittura.get();
+        ultimaScrittura.set(new AtomicLong(Math.max(precedente.get(), scrittura)));
+        try {
+            return lavoro.esegui();
+        } finally {
+            ultimaScrittura.set(precedente);
+        }
+    }
+
+    /**
+     * Indica se il thread corrente ha una transazione in corso.
+     * @return true se il thread sta eseguendo un'unità di lavoro di {@link #eseguiInTransazione(UnitaDiLavoro)}
+     */
+    static boolean inTransazione() {
+        return transazioneCorrente.get() != null;
+    }
+
+    /**
+     * Fa sì che la transazione in corso sul thread corrente venga annullata al suo termine.
+     * Non ha effetto se non è in corso alcuna transazione.
+     */
+    public static void segnaPerRollback() {
+        Transazione transazione = transazioneCorrente.get();
+        if (transazione != null) {
+            transazione.soloRollback = true;
+        }
+    }
+
+    /**
+     * Restituisce la connessione della transazione in corso, oppure una nuova connessione del pool.
+     * @return connessione da rilasciare con {@link #rilascia(Connection)}
+     * @throws ClassNotFoundException
+     * @throws SQLException
+     */
+    private static Connection prendiConnessione() throws ClassNotFoundException, SQLException {
+        Transazione transazione = transazioneCorrente.get();
+        return (transazione != null) ? transazione.connessione : getConnection();
+    }
+
+    /**
+     * Restituisce la connessione su cui eseguire una lettura:
+     * -la connessione della transazione in corso, se presente
+     * -una connessione del primario, se il thread ha scritto negli ultimi {@link #finestraLetturaDalPrimarioMillis}
+     * -altrimenti una connessione verso una replica utilizzabile, o del primario se nessuna lo è
+     * @return connessione da rilasciare con {@link #rilascia(Connection)}
+     * @throws ClassNotFoundException
+     * @throws SQLException
+     */
+    private static Connection prendiConnessioneLettura() throws ClassNotFoundException, SQLException {
+        if (transazioneCorrente.get() != null || urlRepliche.length == 0) {
+            return prendiConnessione();
+        }
+        long scrittura = ultimaScrittura.get().get();
+        if (scrittura == 0 || System.currentTimeMillis() - scrittura > finestraLetturaDalPrimarioMillis) {
+            Connection replica = getRepliche().connessioneLettura();
+            if (replica != null) {
+                return replica;
+            }
+        }
+        return getConnection();
     }
 
     /**
-     * ResultSet - ritorna i risultati di una query
+     * Riconsegna la connessione al pool, a meno che non sia quella della transazione in corso.
+     * @param c
+     * @throws SQLException
+     */
+    private static void rilascia(Connection c) throws SQLException {
+        Transazione transazione = transazioneCorrente.get();
+        if (transazione == null || transazione.connessione != c) {
+            c.close();
+        }
+    }
+
+    /**
+     * Esegue una query di selezione e converte ogni riga con il mapper fornito.
+     * I segnaposto {@code ?} della query vengono valorizzati, nell'ordine, con i parametri forniti.
+     * Connessione, statement e result set vengono chiusi prima di restituire il risultato.
+     * Come tutte le letture, la query può essere servita da una replica (vedi {@link #prendiConnessioneLettura()}).
      * @param query
-     * @return resultSet
+     * @param mapper funzione che converte la riga corrente
+     * @param parametri valori dei segnaposto
+     * @return lista degli oggetti mappati, vuota se la query non restituisce righe
      * @throws ClassNotFoundException
      * @throws SQLException
      */
-    public static ResultSet selectQuery(String query)throws ClassNotFoundException, SQLException{
-        //invoco getConnection
-        Connection conn=getConnection();
-        //Creo uno statement, che contiene un comando SQL
-        Statement statement=conn.createStatement();
-        //Creo un oggetto ResultSet che mantiene un cursore che punta alla riga corrente di dati
-        ResultSet ret=statement.executeQuery(query);
-        return ret;
+    public static <T> ArrayList<T> selectList(String query, RowMapper<T> mapper, Object... parametri)throws ClassNotFoundException, SQLException{
+        long inizio=System.nanoTime();
+        Connection conn=prendiConnessioneLettura();
+        long connessione=System.nanoTime();
+        ArrayList<T> ret=new ArrayList<>();
+        try (PreparedStatement statement=prepara(conn, query, parametri);
+             ResultSet rs=statement.executeQuery()) {
+            while (rs.next()) {
+                ret.add(mapper.mapRow(rs));
+            }
+            registraSuccesso(conn);
+            return ret;
+        } catch (SQLException e) {
+            segnaPerRollback();
+            throw registraErrore(conn, e);
+        } finally {
+            rilascia(conn);
+            registraStatistiche(query, connessione-inizio, System.nanoTime()-connessione, ret.size(), parametri);
+        }
     }
 
     /**
-     * Query per inserimento ed update
+     * Esegue una query di selezione e converte soltanto la prima riga restituita.
+     * I segnaposto {@code ?} della query vengono valorizzati, nell'ordine, con i parametri forniti.
+     * Connessione, statement e result set vengono chiusi prima di restituire il risultato.
      * @param query
-     * @return esito
+     * @param mapper funzione che converte la riga corrente
+     * @param parametri valori dei segnaposto
+     * @return oggetto mappato dalla prima riga, oppure {@code null} se la query non restituisce righe
      * @throws ClassNotFoundException
      * @throws SQLException
      */
-    public static int updateQuery(String query) throws ClassNotFoundException, SQLException{
+    public static <T> T selectFirst(String query, RowMapper<T> mapper, Object... parametri)throws ClassNotFoundException, SQLException{
+        long inizio=System.nanoTime();
+        Connection conn=prendiConnessioneLettura();
+        long connessione=System.nanoTime();
+        int righe=0;
+        try (PreparedStatement statement=prepara(conn, query, parametri);
+             ResultSet rs=statement.executeQuery()) {
+            T ret = null;
+            if (rs.next()) {
+                ret = mapper.mapRow(rs);
+                righe = 1;
+            }
+            registraSuccesso(conn);
+            return ret;
+        } catch (SQLException e) {
+            segnaPerRollback();
+            throw registraErrore(conn, e);
+        } finally {
+            rilascia(conn);
+            registraStatistiche(query, connessione-inizio, System.nanoTime()-connessione, righe, parametri);
+        }
+    }
 
-        //Invoco getConnection
-        Connection conn = getConnection(); //prendo la connesione
+    /**
+     * Esegue una query di selezione in streaming, con la dimensione di fetch configurata in {@link #dimensioneFetch}.
+     * @see #selectStream(String, int, RowMapper, Object...)
+     */
+    public static <T> Stream<T> selectStream(String query, RowMapper<T> mapper, Object... parametri)throws ClassNotFoundException, SQLException{
+        return selectStream(query, dimensioneFetch, mapper, parametri);
+    }
 
-        //Creo uno statement - necessario per effettuare query
-        java.sql.Statement  statement = conn.createStatement(); //creo statement
+    /**
+     * Esegue una query di selezione restituendo le righe mappate come {@link Stream}.
+     * <p>
+     * Le righe vengono lette dal server tramite un cursore, a blocchi di {@code dimensioneFetch},
+     * man mano che lo stream viene consumato: la memoria occupata non dipende dal numero di righe.
+     * La connessione resta impegnata finché lo stream non viene chiuso, quindi va sempre usato
+     * in un blocco try-with-resources.
+     * Un errore durante la lettura viene sollevato come {@link RuntimeException} con causa la {@link SQLException},
+     * oppure come {@link DatabaseNonDisponibileException} se il database non è più raggiungibile.
+     * @param query
+     * @param dimensioneFetch numero di righe lette per ogni round trip
+     * @param mapper funzione che converte la riga corrente
+     * @param parametri valori dei segnaposto
+     * @return stream delle righe mappate, da chiudere al termine dell'uso
+     * @throws ClassNotFoundException
+     * @throws SQLException in caso di errore nell'esecuzione della query
+     */
+    public static <T> Stream<T> selectStream(String query, int dimensioneFetch, RowMapper<T> mapper, Object... parametri)throws ClassNotFoundException, SQLException{
+        long inizio=System.nanoTime();
+        Connection conn=prendiConnessioneLettura();
+        long connessione=System.nanoTime();
+        PreparedStatement statement=null;
+        ResultSet rs=null;
+        try {
+            //statement non condiviso con la cache: la dimensione di fetch resta sua
+            statement=conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(dimensioneFetch);
+            statement.setQueryTimeout(timeoutQuerySecondi);
+            impostaParametri(statement, parametri);
+            rs=statement.executeQuery();
+            registraSuccesso(conn);
+        } catch (SQLException e) {
+            segnaPerRollback();
+            chiudiSilenziosamente(rs, statement, conn);
+            registraStatistiche(query, connessione-inizio, System.nanoTime()-connessione, 0, parametri);
+            throw registraErrore(conn, e);
+        }
+
+        ResultSet cursore=rs;
+        PreparedStatement statementCursore=statement;
+        long esecuzione=System.nanoTime()-connessione;
+        //la durata comprende l'esecuzione e la lettura delle righe, non l'elaborazione fatta da chi consuma lo stream
+        final class Cursore extends Spliterators.AbstractSpliterator<T> {
+            private long durata=esecuzione;
+            private long righeLette;
+
+            private Cursore() {
+                super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            }
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> azione) {
+                long inizioLettura=System.nanoTime();
+                T riga;
+                try {
+                    if (!cursore.next()) {
+                        durata+=System.nanoTime()-inizioLettura;
+                        return false;
+                    }
+                    riga=mapper.mapRow(cursore);
+                } catch (SQLException e) {
+                    segnaPerRollback();
+                    throw new RuntimeException("Errore nella lettura del cursore", registraErrore(conn, e));
+                }
+                durata+=System.nanoTime()-inizioLettura;
+                righeLette++;
+                azione.accept(riga);
+                return true;
+            }
+        }
+        Cursore righe=new Cursore();
+        return StreamSupport.stream(righe, false)
+                .onClose(() -> {
+                    chiudiSilenziosamente(cursore, statementCursore, conn);
+                    registraStatistiche(query, connessione-inizio, righe.durata, righe.righeLette, parametri);
+                });
+    }
+
+    /**
+     * Legge una pagina di risultati con paginazione per chiave (keyset): invece di scartare le righe delle pagine
+     * precedenti con un {@code OFFSET}, la query riprende dalla chiave dell'ultima riga letta, quindi il costo
+     * di ogni pagina non dipende dalla sua posizione nell'elenco.
+     * <p>
+     * La query viene composta a partire dalla selezione ({@code SELECT ... FROM} con gli eventuali {@code JOIN})
+     * e dalla condizione dell'elenco, a cui vengono aggiunti {@code colonnaChiave > ?} e
+     * {@code ORDER BY colonnaChiave LIMIT ?}; la colonna chiave deve essere univoca nel risultato e non vuota.
+     * Viene letta una riga in più per sapere se esiste una pagina successiva.
+     * @param select selezione senza {@code WHERE}, {@code GROUP BY}, {@code HAVING}, {@code ORDER BY} né {@code LIMIT}
+     * @param condizione condizione che filtra le righe dell'elenco, con i soli segnaposto dei parametri,
+     *                   {@code null} per leggere tutte le righe
+     * @param colonnaChiave colonna univoca su cui ordinare e riprendere la lettura
+     * @param cursore cursore restituito con la pagina precedente, {@code null} per la prima pagina
+     * @param dimensione numero massimo di righe della pagina
+     * @param mapper funzione che converte la riga corrente
+     * @param chiave funzione che estrae da un oggetto mappato il valore della colonna chiave
+     * @param parametri valori dei segnaposto della query
+     * @return pagina di oggetti mappati, con il cursore della pagina successiva
+     * @throws ClassNotFoundException
+     * @throws SQLException
+     * @throws IllegalArgumentException se il cursore non è valido o la selezione contiene già una delle clausole composte
+     */
+    public static <T> PaginaDTO<T> selectPagina(String select, String condizione, String colonnaChiave, String cursore, int dimensione,
+                                                RowMapper<T> mapper, Function<T, String> chiave, Object... parametri) throws ClassNotFoundException, SQLException {
+        if (CLAUSOLE_PAGINA.matcher(testoPrincipale(select)).find()) {
+            throw new IllegalArgumentException("La selezione di una pagina non può contenere WHERE, GROUP BY, HAVING, ORDER BY o LIMIT: " + select);
+        }
+        String filtro = (condizione == null) ? "" : "(" + condizione + ") AND ";
+        String queryPagina = select + " WHERE " + filtro + colonnaChiave + " > ? ORDER BY " + colonnaChiave + " LIMIT ?";
+        Object[] parametriPagina = Arrays.copyOf(parametri, parametri.length + 2);
+        parametriPagina[parametri.length] = (cursore == null) ? "" : decodificaCursore(cursore);
+        parametriPagina[parametri.length + 1] = dimensione + 1;
+
+        ArrayList<T> righe = selectList(queryPagina, mapper, parametriPagina);
+        if (righe.size() <= dimensione) {
+            return new PaginaDTO<>(righe, null);
+        }
+        List<T> pagina = righe.subList(0, dimensione);
+        return new PaginaDTO<>(pagina, codificaCursore(chiave.apply(pagina.get(dimensione - 1))));
+    }
+
+    /**
+     * Restituisce il testo della query senza il contenuto delle parentesi e delle stringhe,
+     * così che le clausole delle sottoquery non vengano confuse con quelle della query principale.
+     * @param query testo SQL
+     * @return testo della query principale
+     */
+    private static String testoPrincipale(String query) {
+        StringBuilder ret = new StringBuilder();
+        int profondita = 0;
+        boolean inStringa = false;
+        for (char c : query.toCharArray()) {
+            if (c == '\'') {
+                inStringa = !inStringa;
+            } else if (!inStringa && c == '(') {
+                profondita++;
+            } else if (!inStringa && c == ')') {
+                profondita--;
+            } else if (!inStringa && profondita == 0) {
+                ret.append(c);
+            }
+        }
+        return ret.toString();
+    }
+
+    /**
+     * Codifica la chiave dell'ultima riga di una pagina nel cursore opaco restituito al chiamante.
+     * @param chiave valore della colonna chiave
+     * @return cursore della pagina successiva
+     */
+    private static String codificaCursore(String chiave) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(chiave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Ricava dal cursore la chiave da cui riprendere la lettura.
+     * @param cursore cursore ottenuto da {@link #codificaCursore(String)}
+     * @return valore della colonna chiave
+     * @throws IllegalArgumentException se il cursore non è valido
+     */
+    private static String decodificaCursore(String cursore) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursore), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursore di pagina non valido: " + cursore, e);
+        }
+    }
+
+    /**
+     * Query per inserimento ed update.
+     * I segnaposto {@code ?} della query vengono valorizzati, nell'ordine, con i parametri forniti.
+     * @param query
+     * @param parametri valori dei segnaposto
+     * @return esito
+     * @throws ClassNotFoundException
+     * @throws SQLException
+     * @throws DatabaseNonDisponibileException se il database non è raggiungibile o la query supera {@link #timeoutQuerySecondi}
+     */
+    public static int updateQuery(String query, Object... parametri) throws ClassNotFoundException, SQLException{
 
-        //Effettuo la query
-        int ret = statement.executeUpdate(query);
+        //Prendo la connessione della transazione in corso oppure una dal pool
+        long inizio = System.nanoTime();
+        Connection conn = prendiConnessione();
+        long connessione = System.nanoTime();
+        int ret = 0;
 
-        //Chiudo la connessione
-        closeConnection(conn);
+        try {
+            //Preparo lo statement, riutilizzato dalla cache della connessione se già visto
+            try (PreparedStatement statement = prepara(conn, query, parametri)) {
+                //Effettuo la query
+                ret = statement.executeUpdate();
+                getCircuito().registraSuccesso();
+                //le letture successive del thread vanno al primario, che contiene già la modifica
+                registraScrittura();
+                return ret;
+            }
+        } catch (SQLException e) {
+            //un errore annulla l'intera transazione in corso
+            segnaPerRollback();
+            throw registraErrore(e);
+        } finally {
+            //Riconsegno la connessione al pool
+            closeConnection(conn);
+            registraStatistiche(query, connessione - inizio, System.nanoTime() - connessione, ret, parametri);
+        }
+    }
 
+    /**
+     * Esegue la stessa query di inserimento o aggiornamento per ogni riga di parametri,
+     * inviando le righe al server a blocchi di {@link #dimensioneBatch} con un solo round trip per blocco.
+     * Con {@code rewriteBatchedStatements} il driver riscrive ogni blocco di {@code INSERT ... VALUES}
+     * in un'unica INSERT multi-riga.
+     * <p>
+     * Tutte le righe vengono scritte in un'unica transazione, o in quella già in corso:
+     * se un blocco fallisce nessuna riga viene confermata.
+     * @param query testo SQL con segnaposto {@code ?}
+     * @param righe valori dei segnaposto, un array per ogni esecuzione
+     * @return numero di righe modificate; una riga di cui il driver non riporta il conteggio vale 1
+     * @throws ClassNotFoundException
+     * @throws SQLException
+     * @throws DatabaseNonDisponibileException se il database non è raggiungibile o un blocco supera {@link #timeoutQuerySecondi}
+     */
+    public static int batchUpdate(String query, List<Object[]> righe) throws ClassNotFoundException, SQLException {
+        if (righe.isEmpty()) {
+            return 0;
+        }
+        return eseguiInTransazione(() -> {
+            long inizio = System.nanoTime();
+            Connection conn = prendiConnessione();
+            long connessione = System.nanoTime();
+            int totale = 0;
+            //statement non condiviso con la cache: dopo un errore non deve restare un batch a metà
+            try (PreparedStatement statement = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setQueryTimeout(timeoutQuerySecondi);
+                int inBlocco = 0;
+                for (Object[] parametri : righe) {
+                    impostaParametri(statement, parametri);
+                    statement.addBatch();
+                    if (++inBlocco == dimensioneBatch) {
+                        totale += contaRighe(statement.executeBatch());
+                        inBlocco = 0;
+                    }
+                }
+                if (inBlocco > 0) {
+                    totale += contaRighe(statement.executeBatch());
+                }
+                getCircuito().registraSuccesso();
+                return totale;
+            } catch (SQLException e) {
+                segnaPerRollback();
+                throw registraErrore(e);
+            } finally {
+                rilascia(conn);
+                //nel log delle query lente compaiono i tipi della prima riga di parametri
+                registraStatistiche(query, connessione - inizio, System.nanoTime() - connessione, totale, righe.get(0));
+            }
+        });
+    }
+
+    /**
+     * Prepara i parametri di una condizione {@code IN (...)} sulle chiavi indicate.
+     * Il numero di parametri viene arrotondato alla potenza di due successiva ripetendo l'ultima chiave,
+     * così che blocchi di lunghezza diversa condividano pochi statement preparati nella cache del pool.
+     * Il testo della condizione si ottiene con {@link #segnaposto(int)} sulla lunghezza dell'array restituito.
+     * @param chiavi chiavi da cercare, almeno una
+     * @return valori dei segnaposto
+     */
+    public static Object[] parametriIn(List<?> chiavi) {
+        int n = (chiavi.size() <= 1) ? 1 : Integer.highestOneBit(chiavi.size() - 1) << 1;
+        Object[] ret = new Object[n];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = chiavi.get(Math.min(i, chiavi.size() - 1));
+        }
         return ret;
     }
-}
\ No newline at end of file
+
+    /**
+     * Restituisce l'elenco di segnaposto separati da virgola da inserire in una condizione {@code IN (...)}.
+     * @param numero numero di segnaposto
+     * @return ad esempio {@code "?, ?, ?"} per 3
+     */
+    public static String segnaposto(int numero) {
+        return String.join(", ", Collections.nCopies(numero, "?"));
+    }
+
+    /**
+     * Restituisce il riepilogo delle statistiche raccolte per ogni forma di query eseguita:
+     * numero di esecuzioni, percentili della durata, attesa media della connessione e righe medie.
+     * Le forme sono ordinate per tempo totale di esecuzione, dalla più onerosa.
+     * @return riepilogo testuale, una riga per forma di query
+     */
+    public static String getRiepilogoQuery() {
+        return statistiche.riepilogo();
+    }
+
+    /**
+     * Elimina le statistiche raccolte finora, ad esempio prima di misurare un singolo scenario.
+     */
+    public static void azzeraStatisticheQuery() {
+        statistiche.azzera();
+    }
+
+    /**
+     * Registra durata, attesa della connessione e righe di una query nelle statistiche.
+     * @param query testo SQL eseguito
+     * @param attesaNanos tempo impiegato per ottenere la connessione
+     * @param durataNanos tempo di esecuzione e lettura dei risultati
+     * @param righe righe lette o modificate
+     * @param parametri valori dei segnaposto, riportati nel log delle query lente solo per tipo
+     */
+    private static void registraStatistiche(String query, long attesaNanos, long durataNanos, long righe, Object... parametri) {
+        statistiche.registra(query, attesaNanos, durataNanos, righe, sogliaQueryLenteMillis, parametri);
+    }
+
+    /**
+     * Somma i conteggi restituiti da {@link PreparedStatement#executeBatch()}.
+     * @param conteggi righe modificate da ogni esecuzione, o {@link Statement#SUCCESS_NO_INFO}
+     * @return righe modificate in totale
+     */
+    private static int contaRighe(int[] conteggi) {
+        int totale = 0;
+        for (int conteggio : conteggi) {
+            totale += (conteggio == Statement.SUCCESS_NO_INFO) ? 1 : conteggio;
+        }
+        return totale;
+    }
+
+    /**
+     * Aggiorna l'interruttore di circuito in base all'errore sollevato da una query o dal pool.
+     * @param e errore da classificare
+     * @return l'errore stesso, da rilanciare, se riguarda soltanto la singola query
+     * @throws DatabaseNonDisponibileException se il database non è raggiungibile o non ha risposto in tempo
+     */
+    private static SQLException registraErrore(SQLException e) {
+        if (CircuitBreaker.isErroreDiConnessione(e)) {
+            getCircuito().registraErrore();
+            throw new DatabaseNonDisponibileException(e);
+        }
+        //il server ha risposto, quindi è raggiungibile
+        getCircuito().registraSuccesso();
+        return e;
+    }
+
+    /**
+     * Aggiorna lo stato della sorgente da cui proviene la connessione dopo l'errore di una lettura:
+     * gli errori delle repliche vengono registrati dal {@link ReplicaRouter}, che esclude la replica,
+     * e non dall'interruttore di circuito del primario.
+     * @param conn connessione su cui è stata eseguita la lettura
+     * @param e errore da classificare
+     * @return l'errore stesso, da rilanciare, se riguarda soltanto la singola query
+     * @throws DatabaseNonDisponibileException se la sorgente non è raggiungibile o non ha risposto in tempo
+     */
+    private static SQLException registraErrore(Connection conn, SQLException e) {
+        ReplicaRouter router = repliche;
+        if (router != null && router.registraErrore(conn, e)) {
+            if (CircuitBreaker.isErroreDiConnessione(e)) {
+                throw new DatabaseNonDisponibileException(e);
+            }
+            return e;
+        }
+        return registraErrore(e);
+    }
+
+    /**
+     * Registra una lettura a cui la sorgente ha risposto; solo le risposte del primario richiudono il suo circuito.
+     * @param conn connessione su cui è stata eseguita la lettura
+     */
+    private static void registraSuccesso(Connection conn) {
+        ReplicaRouter router = repliche;
+        if (router == null || !router.isDiReplica(conn)) {
+            getCircuito().registraSuccesso();
+        }
+    }
+
+    /**
+     * Prepara la query sulla connessione, con il tempo massimo di esecuzione configurato, e ne imposta i parametri.
+     * @param conn connessione su cui preparare lo statement
+     * @param query testo SQL con segnaposto {@code ?}
+     * @param parametri valori dei segnaposto; {@link LocalDate} viene convertita in {@link Date}
+     * @return statement pronto per l'esecuzione
+     * @throws SQLException
+     */
+    private static PreparedStatement prepara(Connection conn, String query, Object... parametri) throws SQLException {
+        PreparedStatement statement = conn.prepareStatement(query);
+        try {
+            statement.setQueryTimeout(timeoutQuerySecondi);
+            impostaParametri(statement, parametri);
+            return statement;
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Valorizza i segnaposto dello statement con i parametri forniti, nell'ordine.
+     * @param statement statement da valorizzare
+     * @param parametri valori dei segnaposto; {@link LocalDate} viene convertita in {@link Date}
+     * @throws SQLException
+     */
+    private static void impostaParametri(PreparedStatement statement, Object... parametri) throws SQLException {
+        for (int i = 0; i < parametri.length; i++) {
+            Object valore = parametri[i];
+            if (valore == null) {
+                statement.setNull(i + 1, Types.NULL);
+            } else if (valore instanceof LocalDate data) {
+                statement.setDate(i + 1, Date.valueOf(data));
+            } else {
+                statement.setObject(i + 1, valore);
+            }
+        }
+    }
+
+    /**
+     * Chiude result set e statement e rilascia la connessione, stampando eventuali errori.
+     * @param rs result set da chiudere, può essere null
+     * @param statement statement da chiudere, può essere null
+     * @param conn connessione da rilasciare
+     */
+    private static void chiudiSilenziosamente(ResultSet rs, PreparedStatement statement, Connection conn) {
+        try {
+            try {
+                if (rs != null) rs.close();
+            } finally {
+                try {
+                    if (statement != null) statement.close();
+                } finally {
+                    rilascia(conn);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stato della transazione aperta da un thread.
+     */
+    private static final class Transazione {
+        private final Connection connessione;
+        private boolean soloRollback;
+
+        private Transazione(Connection connessione) {
+            this.connessione = connessione;
+        }
+    }
+}
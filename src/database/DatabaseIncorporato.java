@@ -0,0 +1,267 @@
+package database;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Database H2 eseguito all'interno dell'applicazione, utilizzato da {@link DBManager} al posto del server MySQL
+ * quando l'applicazione viene avviata con la proprietà di sistema {@code databaseIncorporato=true}
+ * o con la variabile d'ambiente {@code DATABASE_INCORPORATO=true}.
+ * <p>
+ * H2 viene aperto in modalità di compatibilità MySQL, quindi i DAO eseguono le stesse query usate con il server.
+ * Come con la collation di MySQL, i confronti tra testi non distinguono maiuscole e minuscole: i DAO cercano
+ * email e titoli, e {@link ChiaviSurrogate} e {@link CaricatoreInBlocco} associano i risultati alle chiavi richieste,
+ * contando su questo comportamento. Per questo le colonne di testo sono create come {@code VARCHAR_IGNORECASE},
+ * e {@code IGNORECASE=TRUE} vale anche per le tabelle create in seguito.
+ * Il database può risiedere in memoria, e in tal caso vive finché è in esecuzione l'applicazione, oppure in un file,
+ * indicato da {@link DBManager#percorsoDatabaseIncorporato}. Alla prima connessione, se non contiene ancora le tabelle,
+ * viene creato eseguendo lo script di {@link DBManager#scriptCreazione}.
+ * <p>
+ * Lo script è il dump di MySQL ({@code ScriptDB.sql}) e viene adattato prima dell'esecuzione:
+ * -vengono ignorati i commenti, compresi quelli condizionali {@code /*!...*}{@code /}, e le istruzioni
+ *  {@code CREATE DATABASE}, {@code USE}, {@code LOCK TABLES} e {@code UNLOCK TABLES}
+ * -vengono tolti gli apici inversi dai nomi e le opzioni di tabella come {@code ENGINE} e {@code CHARSET}
+ * -le sequenze di escape con la barra rovesciata nelle stringhe vengono riscritte in SQL standard
+ * -gli indici ({@code KEY}) diventano istruzioni {@code CREATE INDEX}, e le chiavi esterne vengono aggiunte
+ *  dopo aver creato e riempito tutte le tabelle, perché il dump le crea in ordine alfabetico
+ * -le colonne {@code varchar} e {@code char} diventano {@code VARCHAR_IGNORECASE}
+ * <p>
+ * Sono accettate solo le istruzioni e gli elementi di tabella che il dump produce; qualunque altra forma
+ * fa fallire la creazione con un errore che la riporta, invece di essere eseguita senza adattamento.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+class DatabaseIncorporato {
+    private static final Pattern CREA_TABELLA = Pattern.compile("(?is)CREATE\\s+TABLE\\s+(\\w+)\\s*\\((.*)\\)([^)]*)");
+    private static final Pattern OPZIONI_TABELLA = Pattern.compile("(?i)(\\s*(ENGINE|(DEFAULT\\s+)?(CHARSET|CHARACTER\\s+SET|COLLATE)|AUTO_INCREMENT)\\s*=\\s*\\w+)*\\s*");
+    private static final Pattern COLONNA = Pattern.compile("(?is)(\\w+)\\s+(int|tinyint|smallint|bigint|date|datetime|timestamp|(?:var)?char\\s*\\(\\s*\\d+\\s*\\))" +
+            "((\\s+(NOT\\s+NULL|NULL|AUTO_INCREMENT|DEFAULT\\s+('[^']*'|[\\w.]+)))*)");
+    private static final Pattern CHIAVE_PRIMARIA = Pattern.compile("(?is)PRIMARY\\s+KEY\\s*\\([\\w\\s,]+\\)");
+    private static final Pattern INDICE = Pattern.compile("(?is)KEY\\s+(\\w+)\\s*(\\([\\w\\s,]+\\))");
+    private static final Pattern INDICE_UNIVOCO = Pattern.compile("(?is)UNIQUE\\s+KEY\\s+(\\w+)\\s*(\\([\\w\\s,]+\\))");
+    private static final Pattern CHIAVE_ESTERNA = Pattern.compile("(?is)CONSTRAINT\\s+\\w+\\s+FOREIGN\\s+KEY\\s*\\([\\w\\s,]+\\)\\s*" +
+            "REFERENCES\\s+\\w+\\s*\\([\\w\\s,]+\\)(\\s+ON\\s+(DELETE|UPDATE)\\s+(CASCADE|RESTRICT|SET\\s+NULL|NO\\s+ACTION))*");
+    private static final Pattern ISTRUZIONE_IGNORATA = Pattern.compile("(?is)(CREATE\\s+DATABASE|USE|LOCK\\s+TABLES|UNLOCK\\s+TABLES|SET)\\b.*");
+    private static final Pattern ISTRUZIONE_ESEGUITA = Pattern.compile("(?is)(DROP\\s+TABLE|INSERT\\s+INTO)\\b.*");
+
+    private DatabaseIncorporato() {
+    }
+
+    /**
+     * Restituisce l'url JDBC del database incorporato.
+     *
+     * @param nomeDatabase nome del database in memoria
+     * @param percorso     file del database senza estensione, {@code null} per un database in memoria
+     * @return url JDBC di H2 in modalità MySQL
+     */
+    static String url(String nomeDatabase, String percorso) {
+        //il database in memoria non viene chiuso quando il pool chiude l'ultima connessione
+        String posizione = (percorso == null) ? "mem:" + nomeDatabase + ";DB_CLOSE_DELAY=-1" : "file:" + percorso;
+        return "jdbc:h2:" + posizione + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;IGNORECASE=TRUE";
+    }
+
+    /**
+     * Crea le tabelle e i dati iniziali eseguendo lo script indicato, se il database non ha ancora la tabella {@code studente}.
+     *
+     * @param dataSource sorgente delle connessioni al database incorporato
+     * @param script     percorso dello script di creazione
+     * @return true se il database è stato creato, false se esisteva già
+     * @throws SQLException se lo script non può essere letto o una sua istruzione fallisce
+     */
+    static boolean creaSeAssente(DataSource dataSource, String script) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            try (ResultSet tabelle = conn.getMetaData().getTables(null, null, "studente", null)) {
+                if (tabelle.next()) {
+                    return false;
+                }
+            }
+            String testo;
+            try {
+                testo = Files.readString(Path.of(script), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new SQLException("Impossibile leggere lo script di creazione " + script, e);
+            }
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (Statement statement = conn.createStatement()) {
+                for (String istruzione : adatta(testo)) {
+                    statement.execute(istruzione);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Divide il dump di MySQL nelle singole istruzioni e le adatta ad H2.
+     *
+     * @param testo contenuto dello script
+     * @return istruzioni da eseguire nell'ordine, con le chiavi esterne in fondo
+     * @throws SQLException se lo script contiene un'istruzione o un elemento di tabella non riconosciuto
+     */
+    static List<String> adatta(String testo) throws SQLException {
+        List<String> istruzioni = new ArrayList<>();
+        List<String> chiaviEsterne = new ArrayList<>();
+        for (String istruzione : dividi(testo)) {
+            if (ISTRUZIONE_IGNORATA.matcher(istruzione).matches()) {
+                continue;
+            }
+            if (ISTRUZIONE_ESEGUITA.matcher(istruzione).matches()) {
+                istruzioni.add(istruzione);
+                continue;
+            }
+            Matcher tabella = CREA_TABELLA.matcher(istruzione);
+            if (!tabella.matches() || !OPZIONI_TABELLA.matcher(tabella.group(3)).matches()) {
+                throw nonRiconosciuta("Istruzione dello script di creazione non riconosciuta", istruzione);
+            }
+            String nome = tabella.group(1);
+            List<String> colonne = new ArrayList<>();
+            List<String> indici = new ArrayList<>();
+            for (String elemento : dividiElementi(tabella.group(2))) {
+                Matcher colonna = COLONNA.matcher(elemento);
+                Matcher univoco = INDICE_UNIVOCO.matcher(elemento);
+                Matcher indice = INDICE.matcher(elemento);
+                if (colonna.matches()) {
+                    String tipo = colonna.group(2).replaceFirst("(?i)^(var)?char", "VARCHAR_IGNORECASE");
+                    colonne.add(colonna.group(1) + " " + tipo + colonna.group(3));
+                } else if (CHIAVE_PRIMARIA.matcher(elemento).matches()) {
+                    colonne.add(elemento);
+                } else if (univoco.matches()) {
+                    colonne.add("CONSTRAINT " + univoco.group(1) + " UNIQUE " + univoco.group(2));
+                } else if (indice.matches()) {
+                    indici.add("CREATE INDEX " + indice.group(1) + " ON " + nome + " " + indice.group(2));
+                } else if (CHIAVE_ESTERNA.matcher(elemento).matches()) {
+                    chiaviEsterne.add("ALTER TABLE " + nome + " ADD " + elemento);
+                } else {
+                    throw nonRiconosciuta("Elemento della tabella " + nome + " non riconosciuto", elemento);
+                }
+            }
+            istruzioni.add("CREATE TABLE " + nome + " (" + String.join(", ", colonne) + ")");
+            istruzioni.addAll(indici);
+        }
+        istruzioni.addAll(chiaviEsterne);
+        return istruzioni;
+    }
+
+    /**
+     * Divide il corpo di una {@code CREATE TABLE} nelle definizioni di colonne e vincoli, separate dalle virgole
+     * che non sono racchiuse tra parentesi o apici.
+     *
+     * @param corpo testo tra le parentesi della {@code CREATE TABLE}
+     * @return elementi non vuoti, senza spazi iniziali e finali
+     */
+    private static List<String> dividiElementi(String corpo) {
+        List<String> elementi = new ArrayList<>();
+        int profondita = 0;
+        boolean inStringa = false;
+        int inizio = 0;
+        for (int i = 0; i < corpo.length(); i++) {
+            char c = corpo.charAt(i);
+            if (c == '\'') {
+                inStringa = !inStringa;
+            } else if (!inStringa && c == '(') {
+                profondita++;
+            } else if (!inStringa && c == ')') {
+                profondita--;
+            } else if (!inStringa && profondita == 0 && c == ',') {
+                elementi.add(corpo.substring(inizio, i).trim());
+                inizio = i + 1;
+            }
+        }
+        elementi.add(corpo.substring(inizio).trim());
+        elementi.removeIf(String::isEmpty);
+        return elementi;
+    }
+
+    /**
+     * Crea l'errore per una parte dello script che non può essere adattata.
+     *
+     * @param messaggio descrizione dell'errore
+     * @param testo     testo della parte
+     * @return errore da sollevare
+     */
+    private static SQLException nonRiconosciuta(String messaggio, String testo) {
+        String estratto = testo.length() > 200 ? testo.substring(0, 200) + "..." : testo;
+        return new SQLException(messaggio + ": " + estratto.replaceAll("\\s+", " "));
+    }
+
+    /**
+     * Divide lo script nelle istruzioni separate da {@code ;}, togliendo i commenti e gli apici inversi
+     * e riscrivendo le sequenze di escape delle stringhe.
+     *
+     * @param testo contenuto dello script
+     * @return istruzioni non vuote, senza il {@code ;} finale
+     */
+    private static List<String> dividi(String testo) {
+        List<String> istruzioni = new ArrayList<>();
+        StringBuilder corrente = new StringBuilder();
+        int i = 0;
+        while (i < testo.length()) {
+            char c = testo.charAt(i);
+            if (c == '\'') {
+                //stringa: \x diventa x, e l'apice va raddoppiato
+                corrente.append(c);
+                i++;
+                while (i < testo.length() && testo.charAt(i) != '\'') {
+                    char s = testo.charAt(i);
+                    if (s == '\\' && i + 1 < testo.length()) {
+                        s = testo.charAt(++i);
+                        corrente.append(s == '\'' ? "''" : String.valueOf(s));
+                    } else {
+                        corrente.append(s);
+                    }
+                    i++;
+                }
+                corrente.append('\'');
+                i++;
+            } else if (c == '-' && testo.startsWith("--", i)) {
+                int fine = testo.indexOf('\n', i);
+                i = (fine == -1) ? testo.length() : fine;
+            } else if (c == '/' && testo.startsWith("/*", i)) {
+                int fine = testo.indexOf("*/", i + 2);
+                i = (fine == -1) ? testo.length() : fine + 2;
+            } else if (c == ';') {
+                aggiungi(istruzioni, corrente);
+                i++;
+            } else {
+                if (c != '`') {
+                    corrente.append(c);
+                }
+                i++;
+            }
+        }
+        aggiungi(istruzioni, corrente);
+        return istruzioni;
+    }
+
+    /**
+     * Aggiunge l'istruzione accumulata, se non è vuota, e svuota l'accumulatore.
+     *
+     * @param istruzioni istruzioni già lette
+     * @param corrente   testo dell'istruzione in corso
+     */
+    private static void aggiungi(List<String> istruzioni, StringBuilder corrente) {
+        String istruzione = corrente.toString().trim();
+        if (!istruzione.isEmpty()) {
+            istruzioni.add(istruzione);
+        }
+        corrente.setLength(0);
+    }
+}
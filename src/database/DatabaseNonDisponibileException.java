@@ -0,0 +1,30 @@
+package database;
+
+/**
+ * Errore sollevato da {@link DBManager} quando il database non è raggiungibile o non risponde
+ * entro i tempi massimi configurati, oppure quando l'interruttore di circuito è aperto
+ * dopo troppi errori di questo tipo.
+ * <p>
+ * È un'eccezione non controllata: attraversa i DAO, che gestiscono solo gli errori delle singole query,
+ * e arriva al Controller, che ne mostra il messaggio all'utente.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+public class DatabaseNonDisponibileException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Crea l'errore sollevato quando il circuito è aperto e il database non viene nemmeno contattato.
+     */
+    public DatabaseNonDisponibileException() {
+        super("Il database non è al momento disponibile, riprova più tardi");
+    }
+
+    /**
+     * Crea l'errore a partire dall'errore di connessione o dal timeout rilevato.
+     * @param causa errore originale
+     */
+    public DatabaseNonDisponibileException(Throwable causa) {
+        super("Il database non è al momento disponibile, riprova più tardi", causa);
+    }
+}
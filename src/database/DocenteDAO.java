@@ -1,8 +1,11 @@
 package database;
 
+import dto.PaginaDTO;
+
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object (DAO) per la gestione dei dati relativi ai docenti nel database.
@@ -10,7 +13,7 @@ import java.util.ArrayList;
  * Questa classe fornisce metodi per:
  * -Caricare i dati di un docente tramite email istituzionale
  * -Inserire un nuovo docente nel database
- * -Recuperare l'elenco completo dei docenti registrati
+ * -Recuperare l'elenco completo dei docenti registrati, anche in streaming o una pagina alla volta
  * <p>
  * Le operazioni avvengono attraverso query SQL sulla tabella {@code docente},
  * e utilizzano la classe di utilità {@link DBManager} per l'esecuzione.
@@ -23,6 +26,11 @@ public class DocenteDAO {
     private String password;
     private String cognome;
 
+    //colonne lette per posizione da mappaDocente
+    private static final String COLONNE = "IndirizzoEmailIstituzionale, Nome, Cognome, Password";
+    //colonne lette per posizione da mappaElenco: la password non viene mai mostrata
+    private static final String COLONNE_ELENCO = "IndirizzoEmailIstituzionale, Nome, Cognome";
+
     /**
      * Costruttore di default.
      */
@@ -38,20 +46,17 @@ public class DocenteDAO {
      *        -1 in caso di errore durante l'accesso al database
      */
     public int caricaDaDB() {
-        String query = "SELECT * FROM docente WHERE IndirizzoEmailIstituzionale = " + "'" + this.indirizzoEmailIstituzionale + "'";
+        String query = "SELECT " + COLONNE + " FROM docente WHERE IndirizzoEmailIstituzionale = ?";
 
         try{
-            ResultSet rs = DBManager.selectQuery(query);
-
-            if (rs.next()){
+            DocenteDAO trovato = DBManager.selectFirst(query, rs -> {
                 this.setIndirizzoEmailIstituzionale(rs.getString("IndirizzoEmailIstituzionale"));
                 this.setNome(rs.getString("Nome"));
                 this.setCognome(rs.getString("Cognome"));
                 this.setPassword(rs.getString("Password"));
-                return  1;
-            }else {
-                return  0;
-            }
+                return this;
+            }, this.indirizzoEmailIstituzionale);
+            return (trovato != null) ? 1 : 0;
         } catch (SQLException | ClassNotFoundException e) {
             e.printStackTrace();
             return  -1;
@@ -71,9 +76,9 @@ public class DocenteDAO {
         int ret;
 
         String query = "INSERT INTO docente(IndirizzoEmailIstituzionale, Nome, Cognome, Password) " +
-                "VALUES ('" + email + "', '" + nome + "', '" + cognome +"', '"+ password +"')";
+                "VALUES (?, ?, ?, ?)";
         try{
-            ret = DBManager.updateQuery(query);
+            ret = DBManager.updateQuery(query, email, nome, cognome, password);
 
         }catch(SQLException | ClassNotFoundException e) {
             e.printStackTrace();
@@ -83,29 +88,85 @@ public class DocenteDAO {
     }
 
     /**
-     * Recupera la lista completa di tutti i docenti presenti nel database.
+     * Recupera la lista completa di tutti i docenti presenti nel database, senza la password,
+     * che non serve per mostrare l'elenco.
      *
      * @return lista di oggetti {@code DocenteDAO} contenenti i dati dei docenti,
      *         oppure {@code null} in caso di errore
      */
     public ArrayList<DocenteDAO> getListaDocenti() {
-        ArrayList<DocenteDAO> listaDocenti = new ArrayList<>();
-        String query = "SELECT * FROM docente";
+        String query = "SELECT " + COLONNE_ELENCO + " FROM docente";
+        try{
+            return DBManager.selectList(query, DocenteDAO::mappaElenco);
+        } catch (SQLException | ClassNotFoundException e) {
+           e.printStackTrace();
+           return null;
+        }
+    }
+
+    /**
+     * Recupera una pagina dei docenti presenti nel database, ordinati per indirizzo email, senza la password.
+     * Ogni pagina riprende dall'ultimo docente della precedente (vedi {@link DBManager#selectPagina}).
+     *
+     * @param cursore    cursore restituito con la pagina precedente, {@code null} per la prima pagina
+     * @param dimensione numero massimo di docenti della pagina
+     * @return pagina di oggetti {@code DocenteDAO}, oppure {@code null} in caso di errore
+     */
+    public PaginaDTO<DocenteDAO> getPaginaDocenti(String cursore, int dimensione) {
+        String select = "SELECT " + COLONNE_ELENCO + " FROM docente";
         try{
-            ResultSet rs = DBManager.selectQuery(query);
-            while (rs.next()){
-                DocenteDAO docenteDAO = new DocenteDAO();
-                docenteDAO.setIndirizzoEmailIstituzionale(rs.getString("IndirizzoEmailIstituzionale"));
-                docenteDAO.setNome(rs.getString("Nome"));
-                docenteDAO.setCognome(rs.getString("Cognome"));
-                docenteDAO.setPassword(rs.getString("Password"));
-                listaDocenti.add(docenteDAO);
-            }
+            return DBManager.selectPagina(select, null, "IndirizzoEmailIstituzionale", cursore, dimensione,
+                    DocenteDAO::mappaElenco, DocenteDAO::getIndirizzoEmailIstituzionale);
         } catch (SQLException | ClassNotFoundException e) {
            e.printStackTrace();
            return null;
         }
-        return listaDocenti;
+    }
+
+    /**
+     * Legge in streaming tutti i docenti presenti nel database, compresa la password usata per l'accesso.
+     * Le righe vengono prelevate dal server a blocchi, quindi la memoria occupata non dipende
+     * dal numero di docenti. Lo stream va chiuso al termine dell'uso (try-with-resources).
+     *
+     * @return stream di oggetti {@code DocenteDAO}, vuoto in caso di errore
+     */
+    public Stream<DocenteDAO> getStreamDocenti() {
+        String query = "SELECT " + COLONNE + " FROM docente";
+        try{
+            return DBManager.selectStream(query, DocenteDAO::mappaDocente);
+        } catch (SQLException | ClassNotFoundException e) {
+           e.printStackTrace();
+           return Stream.empty();
+        }
+    }
+
+    /**
+     * Costruisce un docente dalla riga corrente di una query che seleziona {@code COLONNE}, leggendo le colonne per posizione.
+     *
+     * @param rs result set posizionato sulla riga da convertire
+     * @return docente con email, nome, cognome e password
+     * @throws SQLException in caso di errore nella lettura delle colonne
+     */
+    private static DocenteDAO mappaDocente(ResultSet rs) throws SQLException {
+        DocenteDAO docenteDAO = mappaElenco(rs);
+        docenteDAO.setPassword(rs.getString(4));
+        return docenteDAO;
+    }
+
+    /**
+     * Costruisce un docente, senza password, dalla riga corrente di una query che seleziona {@code COLONNE_ELENCO},
+     * leggendo le colonne per posizione.
+     *
+     * @param rs result set posizionato sulla riga da convertire
+     * @return docente con email, nome e cognome
+     * @throws SQLException in caso di errore nella lettura delle colonne
+     */
+    private static DocenteDAO mappaElenco(ResultSet rs) throws SQLException {
+        DocenteDAO docenteDAO = new DocenteDAO();
+        docenteDAO.setIndirizzoEmailIstituzionale(rs.getString(1));
+        docenteDAO.setNome(rs.getString(2));
+        docenteDAO.setCognome(rs.getString(3));
+        return docenteDAO;
     }
 
     // Getter e Setter
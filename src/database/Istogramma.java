@@ -0,0 +1,115 @@
+package database;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Istogramma di valori non negativi a precisione relativa costante, sul modello degli istogrammi HDR,
+ * utilizzato da {@link StatisticheQuery}.
+ * <p>
+ * I valori inferiori a 16 hanno un contatore ciascuno; ogni potenza di due successiva è divisa in 16 intervalli
+ * uguali, quindi l'errore sui percentili è al più 1/16 del valore, qualunque sia il suo ordine di grandezza.
+ * La memoria occupata è fissa (960 contatori) e la registrazione non richiede sincronizzazione.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+class Istogramma {
+    private static final int BIT_SOTTO_INTERVALLI = 4;
+    private static final int SOTTO_INTERVALLI = 1 << BIT_SOTTO_INTERVALLI;
+    private static final int NUMERO_CONTATORI = SOTTO_INTERVALLI + (63 - BIT_SOTTO_INTERVALLI) * SOTTO_INTERVALLI;
+
+    private final AtomicLongArray contatori = new AtomicLongArray(NUMERO_CONTATORI);
+    private final LongAdder conteggio = new LongAdder();
+    private final LongAdder somma = new LongAdder();
+    private final AtomicLong massimo = new AtomicLong();
+
+    /**
+     * Registra un valore; i valori negativi vengono registrati come 0.
+     *
+     * @param valore valore da registrare
+     */
+    void registra(long valore) {
+        long v = Math.max(valore, 0);
+        contatori.incrementAndGet(indice(v));
+        conteggio.increment();
+        somma.add(v);
+        massimo.accumulateAndGet(v, Math::max);
+    }
+
+    /**
+     * @return numero di valori registrati
+     */
+    long getConteggio() {
+        return conteggio.sum();
+    }
+
+    /**
+     * @return somma dei valori registrati
+     */
+    long getSomma() {
+        return somma.sum();
+    }
+
+    /**
+     * @return valore massimo registrato, 0 se non ne sono stati registrati
+     */
+    long getMassimo() {
+        return massimo.get();
+    }
+
+    /**
+     * @return media dei valori registrati, 0 se non ne sono stati registrati
+     */
+    double getMedia() {
+        long n = getConteggio();
+        return (n == 0) ? 0 : (double) getSomma() / n;
+    }
+
+    /**
+     * Restituisce il valore sotto il quale ricade la percentuale indicata dei valori registrati.
+     *
+     * @param percentuale percentuale compresa tra 0 e 100
+     * @return limite superiore dell'intervallo che contiene il percentile, 0 se non sono stati registrati valori
+     */
+    long percentile(double percentuale) {
+        long n = getConteggio();
+        if (n == 0) {
+            return 0;
+        }
+        long soglia = Math.max(1, (long) Math.ceil(percentuale / 100.0 * n));
+        long cumulato = 0;
+        for (int i = 0; i < NUMERO_CONTATORI; i++) {
+            cumulato += contatori.get(i);
+            if (cumulato >= soglia) {
+                return Math.min(limiteSuperiore(i), getMassimo());
+            }
+        }
+        return getMassimo();
+    }
+
+    /**
+     * Calcola il contatore in cui ricade il valore.
+     */
+    private static int indice(long valore) {
+        if (valore < SOTTO_INTERVALLI) {
+            return (int) valore;
+        }
+        int esponente = 63 - Long.numberOfLeadingZeros(valore);
+        int sottoIntervallo = (int) (valore >>> (esponente - BIT_SOTTO_INTERVALLI)) & (SOTTO_INTERVALLI - 1);
+        return SOTTO_INTERVALLI + (esponente - BIT_SOTTO_INTERVALLI) * SOTTO_INTERVALLI + sottoIntervallo;
+    }
+
+    /**
+     * Calcola il valore più alto che ricade nel contatore indicato.
+     */
+    private static long limiteSuperiore(int indice) {
+        if (indice < SOTTO_INTERVALLI) {
+            return indice;
+        }
+        int spostamento = (indice - SOTTO_INTERVALLI) / SOTTO_INTERVALLI;
+        long sottoIntervallo = (indice - SOTTO_INTERVALLI) % SOTTO_INTERVALLI;
+        long limiteInferiore = (SOTTO_INTERVALLI + sottoIntervallo) << spostamento;
+        return limiteInferiore + (1L << spostamento) - 1;
+    }
+}
@@ -1,14 +1,20 @@
 package database;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object (DAO) per la gestione del profilo personale dello studente nel database.
  * <p>
  * Questa classe consente di:
- * -Caricare un profilo personale esistente dal database
+ * -Caricare un profilo personale esistente dal database, eventualmente insieme a tutte le sue attività
+ * -Caricare in blocco i profili, con le attività, di più studenti con {@link #caricaConAttivitaDaDB(List)},
+ *  oppure di tutti gli studenti con poche query che leggono le tabelle per intero; le richieste contemporanee
+ *  del profilo di singoli studenti vengono lette insieme da un {@link CaricatoreInBlocco}
  * -Inserire un nuovo profilo personale per uno studente
  * -Gestire i dati relativi a: totale punti ottenuti, numero di task svolti ed email istituzionale dello studente
  * <p>
@@ -24,6 +30,9 @@ public class ProfiloPersonaleDAO {
     private ArrayList<AttivitaDAO> listaAttivita;
     private ArrayList<RiconoscimentoDAO> listaRiconoscimento;
 
+    private static final CaricatoreInBlocco<String, ProfiloPersonaleDAO> caricatore =
+            new CaricatoreInBlocco<>(ProfiloPersonaleDAO::caricaBloccoConAttivita);
+
     /**
      * Costruttore di default. Inizializza punteggio e numero di task a zero.
      */
@@ -42,25 +51,171 @@ public class ProfiloPersonaleDAO {
      *         {@code -1} in caso di errore durante l'accesso al database
      */
     public int caricaDaDB() {
-        String query = "SELECT * FROM Profilo_Personale WHERE studente_IndirizzoEmailIstituzionale = " + "'" + this.indirizzoEmailIstituzionale + "'";
+        String query = "SELECT TotalePuntiOttenuti, NumeroTaskSvolti FROM Profilo_Personale WHERE studente_Id = ?";
         try {
-            ResultSet rs = DBManager.selectQuery(query);
-            if (rs.next()) {
-                this.indirizzoEmailIstituzionale = rs.getString("studente_IndirizzoEmailIstituzionale");
+            Integer idStudente = ChiaviSurrogate.studente(this.indirizzoEmailIstituzionale);
+            if (idStudente == null) {
+                return 0;
+            }
+            ProfiloPersonaleDAO trovato = DBManager.selectFirst(query, rs -> {
                 this.totalePuntiOttenuti = rs.getInt("TotalePuntiOttenuti");
                 this.numeroTaskSvolti = rs.getInt("NumeroTaskSvolti");
-                return 1;
-            } else {
+                return this;
+            }, idStudente);
+            return (trovato != null) ? 1 : 0;
+        }catch (ClassNotFoundException | SQLException e){
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Carica con un'unica query i contatori del profilo personale e tutte le attività dello studente,
+     * sia assegnate sia consegnate, utilizzando l'indirizzo email istituzionale come chiave.
+     * Le attività vengono salvate in {@code listaAttivita}, ciascuna con il proprio stato di consegna;
+     * dei task viene letta solo l'intestazione, senza la descrizione.
+     * La lettura viene raggruppata con quelle degli altri profili richiesti nello stesso momento (vedi {@link CaricatoreInBlocco}).
+     *
+     * @return {@code 1} se il profilo è stato caricato correttamente,
+     *         {@code 0} se non esiste alcun profilo per l'email specificata,
+     *         {@code -1} in caso di errore SQL o connessione fallita
+     */
+    public int caricaConAttivitaDaDB() {
+        try {
+            ProfiloPersonaleDAO trovato = caricatore.carica(this.indirizzoEmailIstituzionale);
+            if (trovato == null) {
+                this.listaAttivita = new ArrayList<>();
                 return 0;
             }
-        }catch (ClassNotFoundException | SQLException e){
+            this.totalePuntiOttenuti = trovato.totalePuntiOttenuti;
+            this.numeroTaskSvolti = trovato.numeroTaskSvolti;
+            this.listaAttivita = trovato.listaAttivita;
+            return 1;
+        } catch (ClassNotFoundException | SQLException e) {
             e.printStackTrace();
             return -1;
         }
     }
 
+    /**
+     * Carica i profili personali degli studenti indicati, ciascuno con tutte le sue attività,
+     * con una query per ogni blocco di {@link DBManager#dimensioneBloccoChiavi} studenti.
+     * Le email ripetute vengono lette una sola volta.
+     *
+     * @param emails indirizzi email istituzionali degli studenti
+     * @return profili trovati indicizzati per email, senza gli studenti privi di profilo,
+     *         oppure {@code null} in caso di errore SQL o connessione fallita
+     */
+    public static Map<String, ProfiloPersonaleDAO> caricaConAttivitaDaDB(List<String> emails) {
+        try {
+            return caricatore.caricaTutti(emails);
+        } catch (ClassNotFoundException | SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Carica i profili personali di tutti gli studenti, ciascuno con tutte le sue attività, con tre query
+     * che leggono per intero i profili, le intestazioni dei task e le attività, senza filtrare per studente.
+     * Le attività vengono collegate a profili e task in memoria tramite le chiavi surrogate, e ogni task
+     * viene letto una sola volta e condiviso tra le rispettive attività.
+     * Le tre query vengono eseguite in un'unica transazione, così che leggano tutte lo stesso stato del database.
+     *
+     * @return profili di tutti gli studenti indicizzati per email; gli studenti senza profilo non sono presenti,
+     *         oppure {@code null} in caso di errore SQL o connessione fallita
+     */
+    public static Map<String, ProfiloPersonaleDAO> caricaTuttiConAttivitaDaDB() {
+        String queryProfili = "SELECT s.Id, s.IndirizzoEmailIstituzionale, pp.TotalePuntiOttenuti, pp.NumeroTaskSvolti " +
+                "FROM studente s JOIN profilo_personale pp ON pp.studente_Id = s.Id";
+        String queryTask = "SELECT t.Id, " + TaskDidatticoDAO.COLONNE_INTESTAZIONE + " FROM task_didattico t";
+        String queryAttivita = "SELECT profilo_personale_studente_Id, task_didattico_Id, Consegnato FROM attivita";
+        try {
+            return DBManager.eseguiInTransazione(() -> {
+                Map<Integer, ProfiloPersonaleDAO> profili = new HashMap<>();
+                Map<String, ProfiloPersonaleDAO> ret = new LinkedHashMap<>();
+                //colonne lette per posizione, nell'ordine delle SELECT
+                DBManager.selectList(queryProfili, rs -> {
+                    ProfiloPersonaleDAO profilo = new ProfiloPersonaleDAO();
+                    profilo.indirizzoEmailIstituzionale = rs.getString(2);
+                    profilo.totalePuntiOttenuti = rs.getInt(3);
+                    profilo.numeroTaskSvolti = rs.getInt(4);
+                    profilo.listaAttivita = new ArrayList<>();
+                    profili.put(rs.getInt(1), profilo);
+                    ret.put(profilo.indirizzoEmailIstituzionale, profilo);
+                    return profilo;
+                });
+                Map<Integer, TaskDidatticoDAO> tasks = new HashMap<>();
+                DBManager.selectList(queryTask, rs -> {
+                    TaskDidatticoDAO task = TaskDidatticoDAO.leggiIntestazione(rs, 2);
+                    tasks.put(rs.getInt(1), task);
+                    return task;
+                });
+                DBManager.selectList(queryAttivita, rs -> {
+                    ProfiloPersonaleDAO profilo = profili.get(rs.getInt(1));
+                    AttivitaDAO attivita = new AttivitaDAO(profilo, tasks.get(rs.getInt(2)), rs.getBoolean(3));
+                    profilo.listaAttivita.add(attivita);
+                    return attivita;
+                });
+                return ret;
+            });
+        } catch (ClassNotFoundException | SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Carica con un'unica query i profili personali degli studenti indicati, ciascuno con tutte le sue attività.
+     * I task comuni a più profili vengono letti una sola volta e condivisi tra le rispettive attività.
+     *
+     * @param emails indirizzi email istituzionali distinti
+     * @return profili trovati indicizzati per email; gli studenti senza profilo non sono presenti
+     * @throws ClassNotFoundException se il driver del database non è disponibile
+     * @throws SQLException           in caso di errore di accesso al database
+     */
+    private static Map<String, ProfiloPersonaleDAO> caricaBloccoConAttivita(List<String> emails) throws ClassNotFoundException, SQLException {
+        Object[] parametri = DBManager.parametriIn(emails);
+        //le email del blocco vengono tradotte dall'indice univoco di studente, il resto delle join usa le chiavi surrogate
+        String query = "SELECT s.IndirizzoEmailIstituzionale, pp.TotalePuntiOttenuti, pp.NumeroTaskSvolti, " +
+                TaskDidatticoDAO.COLONNE_INTESTAZIONE + ", a.Consegnato " +
+                "FROM studente s JOIN profilo_personale pp ON pp.studente_Id = s.Id " +
+                "LEFT JOIN attivita a ON a.profilo_personale_studente_Id = pp.studente_Id " +
+                "LEFT JOIN task_didattico t ON t.Id = a.task_didattico_Id " +
+                "WHERE s.IndirizzoEmailIstituzionale IN (" + DBManager.segnaposto(parametri.length) + ")";
+
+        Map<String, ProfiloPersonaleDAO> profili = new LinkedHashMap<>();
+        Map<String, TaskDidatticoDAO> tasks = new HashMap<>();
+        //colonne lette per posizione, nell'ordine della SELECT
+        DBManager.selectList(query, rs -> {
+            String email = rs.getString(1);
+            ProfiloPersonaleDAO profilo = profili.get(email);
+            if (profilo == null) {
+                profilo = new ProfiloPersonaleDAO();
+                profilo.indirizzoEmailIstituzionale = email;
+                profilo.totalePuntiOttenuti = rs.getInt(2);
+                profilo.numeroTaskSvolti = rs.getInt(3);
+                profilo.listaAttivita = new ArrayList<>();
+                profili.put(email, profilo);
+            }
+            String titolo = rs.getString(4);
+            if (titolo != null) {
+                TaskDidatticoDAO task = tasks.get(titolo);
+                if (task == null) {
+                    task = TaskDidatticoDAO.leggiIntestazione(rs, 4);
+                    tasks.put(titolo, task);
+                }
+                profilo.listaAttivita.add(new AttivitaDAO(profilo, task, rs.getBoolean(7)));
+            }
+            return profilo;
+        }, parametri);
+        return CaricatoreInBlocco.perChiaviRichieste(emails, profili);
+    }
+
     /**
      * Inserisce un nuovo record di profilo personale nel database per uno studente specificato.
+     * La chiave surrogata dello studente viene letta dalla stessa INSERT, quindi lo studente può essere
+     * stato inserito nella stessa transazione.
      *
      * @param email l'indirizzo email istituzionale dello studente
      * @return {@code 1} se l'inserimento ha avuto successo,<br>
@@ -68,10 +223,10 @@ public class ProfiloPersonaleDAO {
      */
     public int scriviSuDB(String email) {
         int ret;
-        String query = "INSERT INTO profilo_personale(TotalePuntiOttenuti, NumeroTaskSvolti,studente_IndirizzoEmailIstituzionale) " +
-                "VALUES ('" + this.totalePuntiOttenuti + "', '" + this.numeroTaskSvolti + "', '" + email + "')";
+        String query = "INSERT INTO profilo_personale(TotalePuntiOttenuti, NumeroTaskSvolti, studente_Id) " +
+                "SELECT ?, ?, Id FROM studente WHERE IndirizzoEmailIstituzionale = ?";
         try{
-            ret = DBManager.updateQuery(query);
+            ret = DBManager.updateQuery(query, this.totalePuntiOttenuti, this.numeroTaskSvolti, email);
 
         }catch(SQLException | ClassNotFoundException e) {
             e.printStackTrace();
@@ -80,6 +235,28 @@ public class ProfiloPersonaleDAO {
         return ret;
     }
 
+    /**
+     * Inserisce con un'unica scrittura in blocco ({@link DBManager#batchUpdate}) un profilo personale vuoto
+     * per ogni studente specificato. Se un inserimento fallisce non viene inserito nessun profilo.
+     *
+     * @param emails gli indirizzi email istituzionali degli studenti
+     * @return numero di profili inseriti, oppure -1 in caso di errore
+     */
+    public int scriviSuDBInBlocco(List<String> emails) {
+        String query = "INSERT INTO profilo_personale(TotalePuntiOttenuti, NumeroTaskSvolti, studente_Id) " +
+                "SELECT ?, ?, Id FROM studente WHERE IndirizzoEmailIstituzionale = ?";
+        List<Object[]> righe = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            righe.add(new Object[]{0, 0, email});
+        }
+        try {
+            return DBManager.batchUpdate(query, righe);
+        } catch (SQLException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return -1; //errore di scrittura
+        }
+    }
+
     //get e set
 
     /**
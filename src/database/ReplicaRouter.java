@@ -0,0 +1,189 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Instradamento delle letture verso le repliche del database, utilizzato da {@link DBManager}.
+ * <p>
+ * Ogni replica ha un proprio {@link ConnectionPool}. Le connessioni vengono distribuite a rotazione
+ * tra le repliche considerate utilizzabili, cioè quelle:
+ * -raggiungibili all'ultimo controllo
+ * -con un ritardo di replica non superiore a {@code ritardoMassimoSecondi}
+ * <p>
+ * Lo stato delle repliche viene aggiornato periodicamente leggendo {@code Seconds_Behind_Source}
+ * da {@code SHOW REPLICA STATUS}. Un'istanza che non è configurata come replica (ad esempio un secondo
+ * MySQL locale usato per i test) viene considerata allineata.
+ * Quando nessuna replica è utilizzabile, il chiamante deve leggere dal primario.
+ * <p>
+ * Gli errori di connessione delle letture servite da una replica vengono segnalati con
+ * {@link #registraErrore(Connection, SQLException)}: escludono la replica fino al controllo successivo
+ * senza essere contati dall'interruttore di circuito del primario.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+class ReplicaRouter {
+    private final List<Replica> repliche = new ArrayList<>();
+    private final long ritardoMassimoSecondi;
+    private final AtomicInteger prossima = new AtomicInteger();
+    private final ScheduledExecutorService controllo;
+
+    /**
+     * Crea un pool per ogni replica e avvia il controllo periodico del loro stato.
+     *
+     * @param pools                pool di connessioni, uno per replica
+     * @param ritardoMassimoSecondi ritardo di replica oltre il quale una replica non viene usata
+     * @param periodoControlloMillis intervallo tra due controlli dello stato delle repliche
+     */
+    ReplicaRouter(List<ConnectionPool> pools, long ritardoMassimoSecondi, long periodoControlloMillis) {
+        this.ritardoMassimoSecondi = ritardoMassimoSecondi;
+        for (ConnectionPool pool : pools) {
+            repliche.add(new Replica(pool));
+        }
+        this.controllo = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-controllo-repliche");
+            t.setDaemon(true);
+            return t;
+        });
+        if (!repliche.isEmpty()) {
+            controllaRepliche();
+            this.controllo.scheduleWithFixedDelay(this::controllaRepliche,
+                    periodoControlloMillis, periodoControlloMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Restituisce una connessione verso una replica utilizzabile.
+     * Una replica che non riesce a fornire la connessione viene esclusa fino al controllo successivo.
+     *
+     * @return connessione in sola lettura, oppure {@code null} se nessuna replica è utilizzabile
+     */
+    Connection connessioneLettura() {
+        int totale = repliche.size();
+        int inizio = Math.floorMod(prossima.getAndIncrement(), Math.max(totale, 1));
+        for (int i = 0; i < totale; i++) {
+            Replica replica = repliche.get((inizio + i) % totale);
+            if (!replica.isUtilizzabile()) {
+                continue;
+            }
+            Connection conn = null;
+            try {
+                conn = replica.pool.getConnection();
+                conn.setReadOnly(true);
+                return conn;
+            } catch (SQLException | RuntimeException e) {
+                replica.disponibile = false;
+                if (conn != null) {
+                    //riconsegna la connessione, e il suo permesso, al pool della replica
+                    try {
+                        conn.close();
+                    } catch (SQLException errore) {
+                        errore.printStackTrace();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indica se la connessione è stata fornita da una replica.
+     *
+     * @param conn connessione da verificare
+     * @return {@code true} se proviene dal pool di una replica
+     */
+    boolean isDiReplica(Connection conn) {
+        return replicaDi(conn) != null;
+    }
+
+    /**
+     * Registra l'errore di una lettura eseguita su una connessione di replica: se è un errore di connessione,
+     * la replica viene esclusa fino al controllo successivo.
+     *
+     * @param conn connessione su cui è stata eseguita la lettura
+     * @param e    errore sollevato
+     * @return {@code true} se la connessione proviene da una replica, e quindi l'errore non riguarda il primario
+     */
+    boolean registraErrore(Connection conn, SQLException e) {
+        Replica replica = replicaDi(conn);
+        if (replica == null) {
+            return false;
+        }
+        if (CircuitBreaker.isErroreDiConnessione(e)) {
+            replica.disponibile = false;
+        }
+        return true;
+    }
+
+    /**
+     * Cerca la replica che ha fornito la connessione.
+     *
+     * @param conn connessione da cercare
+     * @return replica di provenienza, oppure {@code null} se la connessione non proviene da una replica
+     */
+    private Replica replicaDi(Connection conn) {
+        for (Replica replica : repliche) {
+            if (replica.pool.haConsegnato(conn)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Chiude i pool di tutte le repliche e interrompe il controllo periodico.
+     */
+    void chiudi() {
+        controllo.shutdownNow();
+        for (Replica replica : repliche) {
+            replica.pool.chiudi();
+        }
+    }
+
+    /**
+     * Aggiorna raggiungibilità e ritardo di ogni replica.
+     */
+    private void controllaRepliche() {
+        for (Replica replica : repliche) {
+            try (Connection conn = replica.pool.getConnection();
+                 Statement statement = conn.createStatement();
+                 ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                if (rs.next()) {
+                    long ritardo = rs.getLong("Seconds_Behind_Source");
+                    //NULL indica che la replica è ferma
+                    replica.ritardoSecondi = rs.wasNull() ? Long.MAX_VALUE : ritardo;
+                } else {
+                    replica.ritardoSecondi = 0;
+                }
+                replica.disponibile = true;
+            } catch (SQLException | RuntimeException e) {
+                replica.disponibile = false;
+            }
+        }
+    }
+
+    /**
+     * Stato di una singola replica.
+     */
+    private final class Replica {
+        private final ConnectionPool pool;
+        private volatile boolean disponibile;
+        private volatile long ritardoSecondi;
+
+        private Replica(ConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        private boolean isUtilizzabile() {
+            return disponibile && ritardoSecondi <= ritardoMassimoSecondi;
+        }
+    }
+}
@@ -1,20 +1,22 @@
 package database;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Data Access Object (DAO) per la gestione dei riconoscimenti (badge) associati agli studenti.
  * <p>
  * Questa classe consente di:
- * -Verificare se uno studente ha già ottenuto un determinato badge
- * -Assegnare un nuovo badge allo studente con la data corrente
+ * -Assegnare a uno studente, con la data corrente, tutti i badge indicati che non ha ancora ottenuto
+ * -Assegnare in blocco un badge a tutti i profili che ne soddisfano i requisiti e non lo hanno ancora
  * -Gestire i dati di riconoscimento tramite operazioni di lettura e scrittura nel database
  * <p>
  *
  * Le operazioni avvengono sulla tabella {@code riconoscimento},
- * e fanno riferimento alla relazione tra studente e badge, utilizzando l'indirizzo email come chiave primaria associativa.
+ * e fanno riferimento alla relazione tra studente e badge, utilizzando la chiave surrogata dello studente
+ * ({@link ChiaviSurrogate}) e il nome del badge come chiave primaria associativa.
  * <p>
  * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
  */
@@ -32,42 +34,105 @@ public class RiconoscimentoDAO {
     }
 
     /**
-     * Verifica se lo studente ha già ottenuto un badge specifico.
+     * Assegna allo studente, in un'unica transazione, tutti i badge indicati che non ha ancora ottenuto,
+     * con data di ottenimento pari al giorno corrente.
+     * <p>
+     * La riga del profilo personale viene bloccata prima di leggere i badge già ottenuti, così che gli accessi
+     * concorrenti dello stesso studente vengano serializzati; i badge mancanti vengono poi inseriti con un'unica
+     * {@code INSERT IGNORE} multi-riga, accettata anche da H2 in modalità MySQL. Se lo studente ha già tutti i badge
+     * vengono eseguite soltanto le letture.
      *
-     * @param email      l'indirizzo email istituzionale dello studente
-     * @param nomeBadge  il nome del badge da verificare
-     * @return {@code true} se il badge è già presente nel database per quello studente,
-     *         {@code false} se non è ancora stato assegnato,
-     *         {@code true} anche in caso di errore per evitare duplicati non voluti
+     * @param email      l'indirizzo email dello studente destinatario
+     * @param nomiBadge  i nomi dei badge di cui lo studente soddisfa i requisiti
+     * @return nomi dei badge assegnati con questa operazione, vuota se li aveva già tutti o se non ha un profilo,
+     *         oppure {@code null} in caso di errore SQL o di connessione
      */
-    public boolean studenteHaGiaBadge(String email, String nomeBadge) {
-
-        String query = "SELECT * FROM riconoscimento WHERE profilo_personale_studente_IndirizzoEmailIstituzionale = '" + email + "' AND badge_Nome = '" + nomeBadge + "'";
-
+    public List<String> assegnaBadgeSeNonPresenti(String email, List<String> nomiBadge) {
+        if (nomiBadge.isEmpty()) {
+            return new ArrayList<>();
+        }
+        //il lock è preso sulla sola riga del profilo: H2 non accetta FOR UPDATE sui join esterni
+        String queryProfilo = "SELECT studente_Id FROM profilo_personale WHERE studente_Id = ? FOR UPDATE";
+        String queryPosseduti = "SELECT badge_Nome FROM riconoscimento WHERE profilo_personale_studente_Id = ?";
         try {
-            ResultSet rs = DBManager.selectQuery(query);
-            return rs.next();
-
+            Integer idStudente = ChiaviSurrogate.studente(email);
+            if (idStudente == null) {
+                return new ArrayList<>(); //studente inesistente
+            }
+            return DBManager.eseguiInTransazione(() -> {
+                List<String> nuovi = new ArrayList<>();
+                if (DBManager.selectFirst(queryProfilo, rs -> rs.getInt(1), idStudente) == null) {
+                    return nuovi; //profilo inesistente
+                }
+                List<String> posseduti = DBManager.selectList(queryPosseduti, rs -> rs.getString(1), idStudente);
+                for (String nomeBadge : nomiBadge) {
+                    if (!posseduti.contains(nomeBadge) && !nuovi.contains(nomeBadge)) {
+                        nuovi.add(nomeBadge);
+                    }
+                }
+                if (nuovi.isEmpty()) {
+                    return nuovi;
+                }
+
+                LocalDate oggi = LocalDate.now();
+                StringBuilder query = new StringBuilder("INSERT IGNORE INTO riconoscimento (profilo_personale_studente_Id, badge_Nome, DataDiOttenimento) VALUES ");
+                Object[] parametri = new Object[nuovi.size() * 3];
+                for (int i = 0; i < nuovi.size(); i++) {
+                    query.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+                    parametri[3 * i] = idStudente;
+                    parametri[3 * i + 1] = nuovi.get(i);
+                    parametri[3 * i + 2] = oggi;
+                }
+                DBManager.updateQuery(query.toString(), parametri);
+                return nuovi;
+            });
         } catch (SQLException | ClassNotFoundException e) {
             e.printStackTrace();
-            return true;
+            return null;
         }
     }
 
     /**
-     * Assegna un nuovo badge allo studente registrando l’operazione nel database.
-     * La data di ottenimento è impostata automaticamente al giorno corrente.
+     * Restituisce gli studenti che soddisfano i requisiti minimi di un badge ma non lo hanno ancora ottenuto.
      *
-     * @param email      l'indirizzo email dello studente destinatario
-     * @param nomeBadge  il nome del badge da assegnare
-     * @return {@code 1} se l'operazione è andata a buon fine,<br>
-     *         {@code -1} in caso di errore SQL o di connessione
+     * @param nomeBadge   il nome del badge
+     * @param puntiMinimi punti totali richiesti
+     * @param taskMinimi  numero di task svolti richiesto
+     * @return email degli studenti idonei, oppure {@code null} in caso di errore
      */
-    public int assegnaBadge(String email, String nomeBadge) {
-        String query = "INSERT INTO riconoscimento  (profilo_personale_studente_IndirizzoEmailIstituzionale, badge_Nome, DataDiOttenimento) VALUES ('" + email + "', '" + nomeBadge +"', '"+ LocalDate.now()+"')";
+    public List<String> getEmailIdoneeSenzaBadge(String nomeBadge, int puntiMinimi, int taskMinimi) {
+        String query = "SELECT s.IndirizzoEmailIstituzionale FROM profilo_personale pp " +
+                "JOIN studente s ON s.Id = pp.studente_Id " +
+                "WHERE pp.TotalePuntiOttenuti >= ? AND pp.NumeroTaskSvolti >= ? " +
+                "AND NOT EXISTS (SELECT 1 FROM riconoscimento r " +
+                "WHERE r.profilo_personale_studente_Id = pp.studente_Id AND r.badge_Nome = ?)";
         try {
-            return DBManager.updateQuery(query);
+            return DBManager.selectList(query, rs -> rs.getString(1), puntiMinimi, taskMinimi, nomeBadge);
+        } catch (SQLException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
+    /**
+     * Assegna lo stesso badge a più studenti con un'unica scrittura in blocco ({@link DBManager#batchUpdate}).
+     * La data di ottenimento è impostata al giorno corrente. Gli studenti che hanno ricevuto il badge nel frattempo,
+     * ad esempio accedendo al proprio profilo, vengono ignorati. Se un inserimento fallisce non viene assegnato nessun badge.
+     *
+     * @param emails    gli indirizzi email degli studenti destinatari
+     * @param nomeBadge il nome del badge da assegnare
+     * @return numero di badge assegnati, oppure -1 in caso di errore
+     */
+    public int assegnaBadgeInBlocco(List<String> emails, String nomeBadge) {
+        String query = "INSERT IGNORE INTO riconoscimento  (profilo_personale_studente_Id, badge_Nome, DataDiOttenimento) " +
+                "SELECT Id, ?, ? FROM studente WHERE IndirizzoEmailIstituzionale = ?";
+        LocalDate oggi = LocalDate.now();
+        List<Object[]> righe = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            righe.add(new Object[]{nomeBadge, oggi, email});
+        }
+        try {
+            return DBManager.batchUpdate(query, righe);
         } catch (SQLException | ClassNotFoundException e) {
             e.printStackTrace();
             return -1;
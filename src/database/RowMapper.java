@@ -0,0 +1,28 @@
+package database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Funzione che converte la riga corrente di un {@link ResultSet} in un oggetto.
+ * <p>
+ * Viene passata ai metodi di lettura di {@link DBManager}, che scorrono il risultato della query
+ * e chiudono connessione, statement e result set al termine della mappatura.
+ * Il mapper non deve quindi conservare riferimenti al {@code ResultSet} né spostarne il cursore.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ *
+ * @param <T> tipo dell'oggetto prodotto per ogni riga
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Converte la riga corrente del result set.
+     *
+     * @param rs result set posizionato sulla riga da convertire
+     * @return oggetto costruito a partire dalla riga
+     * @throws SQLException in caso di errore nella lettura delle colonne
+     */
+    T mapRow(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,135 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Raccoglie le statistiche delle query eseguite da {@link DBManager}.
+ * <p>
+ * Le query vengono raggruppate per forma normalizzata: spazi compattati, letterali sostituiti da {@code ?}
+ * e liste di segnaposto ridotte a {@code ?, ...}, così che ad esempio le {@code IN (...)} di lunghezza
+ * diversa finiscano nello stesso gruppo. Per ogni forma vengono registrati in un {@link Istogramma}:
+ * -la durata dell'esecuzione, compresa la lettura delle righe, in microsecondi
+ * -l'attesa per ottenere la connessione, in microsecondi
+ * -il numero di righe lette o modificate
+ * <p>
+ * Le query che superano la soglia indicata vengono scritte nel log delle query lente
+ * ({@code database.QueryLente}) con i parametri oscurati: del valore viene riportato soltanto il tipo.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+class StatisticheQuery {
+    private static final Logger LOG_QUERY_LENTE = Logger.getLogger("database.QueryLente");
+    private static final Pattern LETTERALE_STRINGA = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern LETTERALE_NUMERICO = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern LISTA_SEGNAPOSTO = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern SPAZI = Pattern.compile("\\s+");
+
+    //le query sono quasi sempre costanti: la forma viene calcolata una sola volta per testo
+    private final Map<String, String> forme = new ConcurrentHashMap<>();
+    private final Map<String, Statistiche> perForma = new ConcurrentHashMap<>();
+
+    /**
+     * Registra l'esecuzione di una query e, se supera la soglia, la scrive nel log delle query lente.
+     *
+     * @param query              testo SQL eseguito
+     * @param attesaNanos        tempo impiegato per ottenere la connessione
+     * @param durataNanos        tempo di esecuzione e lettura dei risultati
+     * @param righe              righe lette o modificate
+     * @param sogliaLentaMillis  durata oltre la quale la query è considerata lenta
+     * @param parametri          valori dei segnaposto, riportati nel log solo per tipo
+     */
+    void registra(String query, long attesaNanos, long durataNanos, long righe, long sogliaLentaMillis, Object... parametri) {
+        String forma = forme.computeIfAbsent(query, StatisticheQuery::normalizza);
+        Statistiche statistiche = perForma.computeIfAbsent(forma, _ -> new Statistiche());
+        statistiche.durata.registra(TimeUnit.NANOSECONDS.toMicros(durataNanos));
+        statistiche.attesaConnessione.registra(TimeUnit.NANOSECONDS.toMicros(attesaNanos));
+        statistiche.righe.registra(righe);
+
+        long durataMillis = TimeUnit.NANOSECONDS.toMillis(durataNanos);
+        if (durataMillis >= sogliaLentaMillis) {
+            LOG_QUERY_LENTE.warning(() -> String.format("Query lenta: %d ms (attesa connessione %d ms, %d righe) %s parametri=%s",
+                    durataMillis, TimeUnit.NANOSECONDS.toMillis(attesaNanos), righe, forma, oscura(parametri)));
+        }
+    }
+
+    /**
+     * Restituisce un riepilogo testuale delle statistiche, una riga per forma di query,
+     * ordinate per tempo totale di esecuzione decrescente.
+     *
+     * @return riepilogo con numero di esecuzioni, percentili della durata, attesa media e righe medie
+     */
+    String riepilogo() {
+        List<Map.Entry<String, Statistiche>> voci = new ArrayList<>(perForma.entrySet());
+        voci.sort(Comparator.comparingLong((Map.Entry<String, Statistiche> voce) -> voce.getValue().durata.getSomma()).reversed());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%8s %9s %9s %9s %9s %9s %8s  %s%n",
+                "n", "p50 ms", "p95 ms", "p99 ms", "max ms", "attesa ms", "righe", "query"));
+        for (Map.Entry<String, Statistiche> voce : voci) {
+            Statistiche s = voce.getValue();
+            sb.append(String.format("%8d %9.2f %9.2f %9.2f %9.2f %9.2f %8.1f  %s%n",
+                    s.durata.getConteggio(),
+                    s.durata.percentile(50) / 1000.0,
+                    s.durata.percentile(95) / 1000.0,
+                    s.durata.percentile(99) / 1000.0,
+                    s.durata.getMassimo() / 1000.0,
+                    s.attesaConnessione.getMedia() / 1000.0,
+                    s.righe.getMedia(),
+                    voce.getKey()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Elimina tutte le statistiche raccolte.
+     */
+    void azzera() {
+        perForma.clear();
+    }
+
+    /**
+     * Calcola la forma normalizzata di una query.
+     *
+     * @param query testo SQL
+     * @return query con spazi compattati, letterali sostituiti da {@code ?} e liste di segnaposto ridotte
+     */
+    static String normalizza(String query) {
+        String forma = LETTERALE_STRINGA.matcher(query).replaceAll("?");
+        forma = LETTERALE_NUMERICO.matcher(forma).replaceAll("?");
+        forma = LISTA_SEGNAPOSTO.matcher(forma).replaceAll("?, ...");
+        return SPAZI.matcher(forma).replaceAll(" ").trim();
+    }
+
+    /**
+     * Sostituisce ogni parametro con il nome del suo tipo, per non scrivere dati personali nel log.
+     *
+     * @param parametri valori dei segnaposto
+     * @return elenco dei tipi dei parametri
+     */
+    private static String oscura(Object... parametri) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < parametri.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(parametri[i] == null ? "null" : parametri[i].getClass().getSimpleName());
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Istogrammi raccolti per una forma di query.
+     */
+    private static final class Statistiche {
+        private final Istogramma durata = new Istogramma();
+        private final Istogramma attesaConnessione = new Istogramma();
+        private final Istogramma righe = new Istogramma();
+    }
+}
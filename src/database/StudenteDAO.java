@@ -1,18 +1,25 @@
 package database;
 
+import dto.PaginaDTO;
+
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object (DAO) per la gestione degli studenti nel database.
  * <p>
  * La classe {@code StudenteDAO} fornisce metodi per:
  * <p>
- *-Caricare i dati di uno studente tramite il suo indirizzo email
- *-Scrivere un nuovo studente nella tabella {@code studente}
- * -Recuperare l'elenco di tutti gli studenti presenti nel sistema
+ *-Caricare i dati di uno studente tramite il suo indirizzo email; le richieste contemporanee di più studenti
+ *  vengono lette insieme da un {@link CaricatoreInBlocco}
+ *-Scrivere un nuovo studente nella tabella {@code studente}, o più studenti in blocco
+ * -Recuperare l'elenco di tutti gli studenti presenti nel sistema, anche in streaming o una pagina alla volta
+ * -Registrare l'ultimo accesso di uno studente e recuperare gli studenti che hanno fatto accesso più di recente
  * <p>
  * Ogni istanza rappresenta un singolo studente, con attributi personali e collegamento a una classe virtuale.
  * <p>
@@ -26,6 +33,16 @@ public class StudenteDAO {
     private String classeVirtualeCodiceUnivoco;
     private ProfiloPersonaleDAO profiloPersonaleAssociato;
 
+    //colonne lette per posizione da mappaStudente
+    private static final String COLONNE = "s.IndirizzoEmailIstituzionale, s.Nome, s.Cognome, s.Password, c.CodiceUnivoco";
+    //colonne lette per posizione da mappaElenco: la password non viene mai mostrata
+    private static final String COLONNE_ELENCO = "s.IndirizzoEmailIstituzionale, s.Nome, s.Cognome, c.CodiceUnivoco";
+    //lo studente fa riferimento alla classe con la chiave surrogata: il codice univoco si legge dalla classe
+    private static final String DA_STUDENTE = " FROM studente s LEFT JOIN classe_virtuale c ON c.Id = s.classe_virtuale_Id";
+
+    private static final CaricatoreInBlocco<String, StudenteDAO> caricatore =
+            new CaricatoreInBlocco<>(StudenteDAO::caricaDaDB);
+
     /**
      * Costruttore di default.
      */
@@ -35,33 +52,48 @@ public class StudenteDAO {
 
     /**
      * Carica i dati dello studente dal database in base all'indirizzo email.
+     * La lettura viene raggruppata con quelle degli altri studenti richiesti nello stesso momento (vedi {@link CaricatoreInBlocco}).
      *
      * @return 1 se il caricamento ha successo,
      *         0 se nessun risultato è stato trovato,
      *        -1 in caso di errore durante l'accesso al database
      */
     public int caricaDaDB() {
-        String query = "SELECT * FROM studente WHERE IndirizzoEmailIstituzionale =" + "'" + this.indirizzoEmailIstituzionale + "'";
-
         try{
-            ResultSet rs = DBManager.selectQuery(query);
-
-            if (rs.next()) {
-                this.setIndirizzoEmailIstituzionale(rs.getString("IndirizzoEmailIstituzionale"));
-                this.setNome(rs.getString("Nome"));
-                this.setCognome(rs.getString("Cognome"));
-                this.setPassword(rs.getString("Password"));
-                this.setClasseVirtualeCodiceUnivoco(rs.getString("classe_virtuale_CodiceUnivoco"));
-                return  1; //SUCCESSO
-            } else {
-                return  0; // Nessuno Risultato
+            StudenteDAO trovato = caricatore.carica(this.indirizzoEmailIstituzionale);
+            if (trovato == null) {
+                return 0; //Nessun Risultato
             }
+            this.setIndirizzoEmailIstituzionale(trovato.getIndirizzoEmailIstituzionale());
+            this.setNome(trovato.getNome());
+            this.setCognome(trovato.getCognome());
+            this.setPassword(trovato.getPassword());
+            this.setClasseVirtualeCodiceUnivoco(trovato.getClasseVirtualeCodiceUnivoco());
+            return 1; //SUCCESSO
         } catch (SQLException | ClassNotFoundException e) {
             e.printStackTrace();
             return  -1; // Errore
         }
     }
 
+    /**
+     * Carica con un'unica query i dati degli studenti indicati.
+     *
+     * @param emails indirizzi email istituzionali distinti
+     * @return studenti trovati indicizzati per email
+     * @throws ClassNotFoundException se il driver del database non è disponibile
+     * @throws SQLException           in caso di errore di accesso al database
+     */
+    private static Map<String, StudenteDAO> caricaDaDB(List<String> emails) throws ClassNotFoundException, SQLException {
+        Object[] parametri = DBManager.parametriIn(emails);
+        String query = "SELECT " + COLONNE + DA_STUDENTE + " WHERE s.IndirizzoEmailIstituzionale IN (" + DBManager.segnaposto(parametri.length) + ")";
+        Map<String, StudenteDAO> ret = new HashMap<>();
+        for (StudenteDAO s : DBManager.selectList(query, StudenteDAO::mappaStudente, parametri)) {
+            ret.put(s.getIndirizzoEmailIstituzionale(), s);
+        }
+        return CaricatoreInBlocco.perChiaviRichieste(emails, ret);
+    }
+
     /**
      * Inserisce un nuovo studente nel database.
      *
@@ -73,14 +105,15 @@ public class StudenteDAO {
      */
     public int scriviSuDB(String email, String nome , String cognome, String password) {
         int ret;
-        String classeValue = (this.classeVirtualeCodiceUnivoco == null)
-                ? "NULL"
-                : "'" + this.classeVirtualeCodiceUnivoco + "'";
-
-        String query = "INSERT INTO studente(IndirizzoEmailIstituzionale, Nome, Cognome, Password, classe_virtuale_CodiceUnivoco) " +
-                "VALUES ('" + email + "', '" + nome + "', '" + cognome.replace("'", "''") +"', '"+ password.replace("'", "''") + "', " + classeValue + ")";
+        String query = "INSERT INTO studente(IndirizzoEmailIstituzionale, Nome, Cognome, Password, classe_virtuale_Id) " +
+                "VALUES (?, ?, ?, ?, ?)";
         try{
-            ret = DBManager.updateQuery(query);
+            //la classe virtuale può essere null: viene scritto NULL nel database
+            Integer idClasse = ChiaviSurrogate.classe(this.classeVirtualeCodiceUnivoco);
+            if (this.classeVirtualeCodiceUnivoco != null && idClasse == null) {
+                return -1; //classe virtuale inesistente
+            }
+            ret = DBManager.updateQuery(query, email, nome, cognome, password, idClasse);
 
         }catch(SQLException | ClassNotFoundException e) {
             e.printStackTrace();
@@ -90,30 +123,154 @@ public class StudenteDAO {
     }
 
     /**
-     * Recupera l'elenco completo degli studenti registrati nel database.
+     * Inserisce più studenti nel database con un'unica scrittura in blocco ({@link DBManager#batchUpdate}).
+     * Se un inserimento fallisce, ad esempio per un'email già registrata, non viene inserito nessuno studente.
+     *
+     * @param studenti studenti da inserire, con email, nome, cognome, password ed eventuale classe virtuale
+     * @return numero di righe inserite, oppure -1 in caso di errore
+     */
+    public int scriviSuDBInBlocco(List<StudenteDAO> studenti) {
+        String query = "INSERT INTO studente(IndirizzoEmailIstituzionale, Nome, Cognome, Password, classe_virtuale_Id) " +
+                "VALUES (?, ?, ?, ?, ?)";
+        List<Object[]> righe = new ArrayList<>(studenti.size());
+        try {
+            for (StudenteDAO studente : studenti) {
+                //le classi sono poche e ripetute: dopo la prima, ogni traduzione viene trovata in memoria
+                Integer idClasse = ChiaviSurrogate.classe(studente.getClasseVirtualeCodiceUnivoco());
+                if (studente.getClasseVirtualeCodiceUnivoco() != null && idClasse == null) {
+                    return -1; //classe virtuale inesistente
+                }
+                righe.add(new Object[]{studente.getIndirizzoEmailIstituzionale(), studente.getNome(), studente.getCognome(),
+                        studente.getPassword(), idClasse});
+            }
+            return DBManager.batchUpdate(query, righe);
+        } catch (SQLException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return -1; //errore di scrittura
+        }
+    }
+
+    /**
+     * Recupera l'elenco completo degli studenti registrati nel database, senza la password,
+     * che non serve per mostrare l'elenco.
      *
      * @return lista di oggetti {@code StudenteDAO}, oppure {@code null} in caso di errore
      */
     public List<StudenteDAO> getListaStudenti(){
 
-        ArrayList<StudenteDAO> listaStudenti = new ArrayList<>();
-        String query = "SELECT * FROM studente";
+        String query = "SELECT " + COLONNE_ELENCO + DA_STUDENTE;
         try {
-            ResultSet rs = DBManager.selectQuery(query);
-            while (rs.next()) {
-                StudenteDAO studenteDAO = new StudenteDAO();
-                studenteDAO.setIndirizzoEmailIstituzionale(rs.getString("IndirizzoEmailIstituzionale"));
-                studenteDAO.setNome(rs.getString("Nome"));
-                studenteDAO.setCognome(rs.getString("Cognome"));
-                studenteDAO.setPassword(rs.getString("Password"));
-                studenteDAO.setClasseVirtualeCodiceUnivoco(rs.getString("classe_virtuale_CodiceUnivoco"));
-                listaStudenti.add(studenteDAO);
-            }
+            return DBManager.selectList(query, StudenteDAO::mappaElenco);
+        } catch (SQLException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Recupera una pagina degli studenti registrati nel database, ordinati per indirizzo email, senza la password.
+     * Ogni pagina riprende dall'ultimo studente della precedente (vedi {@link DBManager#selectPagina}).
+     *
+     * @param cursore    cursore restituito con la pagina precedente, {@code null} per la prima pagina
+     * @param dimensione numero massimo di studenti della pagina
+     * @return pagina di oggetti {@code StudenteDAO}, oppure {@code null} in caso di errore
+     */
+    public PaginaDTO<StudenteDAO> getPaginaStudenti(String cursore, int dimensione) {
+        String select = "SELECT " + COLONNE_ELENCO + DA_STUDENTE;
+        try {
+            return DBManager.selectPagina(select, null, "s.IndirizzoEmailIstituzionale", cursore, dimensione,
+                    StudenteDAO::mappaElenco, StudenteDAO::getIndirizzoEmailIstituzionale);
         } catch (SQLException | ClassNotFoundException e) {
             e.printStackTrace();
             return null;
         }
-        return listaStudenti;
+    }
+
+    /**
+     * Legge in streaming tutti gli studenti registrati nel database, compresa la password usata per l'accesso.
+     * Le righe vengono prelevate dal server a blocchi, quindi la memoria occupata non dipende
+     * dal numero di studenti. Lo stream va chiuso al termine dell'uso (try-with-resources).
+     *
+     * @return stream di oggetti {@code StudenteDAO}, vuoto in caso di errore
+     */
+    public Stream<StudenteDAO> getStreamStudenti(){
+        String query = "SELECT " + COLONNE + DA_STUDENTE;
+        try {
+            return DBManager.selectStream(query, StudenteDAO::mappaStudente);
+        } catch (SQLException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Registra la data e l'ora correnti come ultimo accesso dello studente.
+     * La scrittura non viene considerata dal read-your-writes (vedi {@link DBManager#finestraLetturaDalPrimarioMillis}):
+     * nessuna lettura successiva dipende da essa, quindi le letture del thread possono continuare a usare le repliche.
+     *
+     * @param email indirizzo email istituzionale dello studente
+     * @return numero di righe modificate (1, oppure 0 se lo studente non esiste), oppure -1 in caso di errore
+     */
+    public int registraAccesso(String email) {
+        String query = "UPDATE studente SET UltimoAccesso = CURRENT_TIMESTAMP WHERE IndirizzoEmailIstituzionale = ?";
+        try {
+            return DBManager.conUltimaScrittura(0, () -> DBManager.updateQuery(query, email));
+        } catch (SQLException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return -1; //errore di scrittura
+        }
+    }
+
+    /**
+     * Recupera gli indirizzi email degli studenti che hanno fatto accesso più di recente,
+     * dal più recente al meno recente. Gli studenti che non hanno mai fatto accesso non vengono restituiti.
+     *
+     * @param numero numero massimo di studenti da restituire
+     * @return lista degli indirizzi email, oppure {@code null} in caso di errore
+     */
+    public List<String> getEmailAccessiRecenti(int numero) {
+        String query = "SELECT IndirizzoEmailIstituzionale FROM studente WHERE UltimoAccesso IS NOT NULL " +
+                "ORDER BY UltimoAccesso DESC LIMIT ?";
+        try {
+            return DBManager.selectList(query, rs -> rs.getString(1), numero);
+        } catch (SQLException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Costruisce uno studente dalla riga corrente di una query che seleziona {@code COLONNE}, leggendo le colonne per posizione.
+     *
+     * @param rs result set posizionato sulla riga da convertire
+     * @return studente con email, nome, cognome, password e classe virtuale
+     * @throws SQLException in caso di errore nella lettura delle colonne
+     */
+    private static StudenteDAO mappaStudente(ResultSet rs) throws SQLException {
+        StudenteDAO studenteDAO = new StudenteDAO();
+        studenteDAO.setIndirizzoEmailIstituzionale(rs.getString(1));
+        studenteDAO.setNome(rs.getString(2));
+        studenteDAO.setCognome(rs.getString(3));
+        studenteDAO.setPassword(rs.getString(4));
+        studenteDAO.setClasseVirtualeCodiceUnivoco(rs.getString(5));
+        return studenteDAO;
+    }
+
+    /**
+     * Costruisce uno studente, senza password, dalla riga corrente di una query che seleziona {@code COLONNE_ELENCO},
+     * leggendo le colonne per posizione.
+     *
+     * @param rs result set posizionato sulla riga da convertire
+     * @return studente con email, nome, cognome e classe virtuale
+     * @throws SQLException in caso di errore nella lettura delle colonne
+     */
+    private static StudenteDAO mappaElenco(ResultSet rs) throws SQLException {
+        StudenteDAO studenteDAO = new StudenteDAO();
+        studenteDAO.setIndirizzoEmailIstituzionale(rs.getString(1));
+        studenteDAO.setNome(rs.getString(2));
+        studenteDAO.setCognome(rs.getString(3));
+        studenteDAO.setClasseVirtualeCodiceUnivoco(rs.getString(4));
+        return studenteDAO;
     }
 
     // Metodi getter e setter
@@ -1,18 +1,30 @@
 package database;
 
+import dto.IntestazioneTaskDTO;
+import dto.PaginaDTO;
+
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object (DAO) per la gestione dei task didattici nel database.
  * <p>
  * La classe {@code TaskDidatticoDAO} fornisce metodi per:
- * -Caricare le informazioni di un task esistente tramite il titolo
+ * -Caricare le informazioni di un task esistente tramite il titolo; le richieste contemporanee di più task
+ *  vengono lette insieme da un {@link CaricatoreInBlocco}
+ * -Caricare su richiesta la sola descrizione di un task
  * -Creare e salvare un nuovo task nella tabella {@code task_didattico}
- * -Recuperare i task assegnati a una determinata classe virtuale
+ * -Recuperare i task assegnati a una determinata classe virtuale, anche una pagina alla volta
+ * <p>
+ * Gli elenchi di task leggono soltanto le colonne dell'intestazione ({@link #COLONNE_INTESTAZIONE}):
+ * la descrizione, fino a 500 caratteri, viene letta solo per il singolo task con {@link #caricaDescrizioneDaDB()}.
+ * Le righe degli elenchi vengono convertite direttamente in {@link IntestazioneTaskDTO}, leggendo le colonne
+ * per posizione, senza passare da un'istanza di questa classe.
  * <p>
  * Ogni istanza rappresenta un singolo task didattico.
  * <p>
@@ -25,6 +37,25 @@ public class TaskDidatticoDAO {
     private int numeroMassimoDiPuntiAssegnabili;
     private ClasseVirtualeDAO classeVirtualeAssociata;
 
+    //colonne lette dagli elenchi di task, con alias t per la tabella task_didattico, nell'ordine atteso da mappaIntestazione e leggiIntestazione
+    static final String COLONNE_INTESTAZIONE = "t.Titolo, t.DataDiScadenza, t.NumeroMassimoDiPuntiAssegnabili";
+    /*
+     * Task della classe con almeno un'attività non consegnata. La semi-join EXISTS si ferma alla prima attività
+     * trovata sull'indice attivita(task_didattico_Id, Consegnato), invece di unire tutte le attività
+     * della classe e ordinarle per eliminare i duplicati con DISTINCT; i task della classe vengono letti
+     * dall'indice su (classe_virtuale_Id, Titolo), già ordinato per la paginazione.
+     */
+    private static final String SELECT_INTESTAZIONI = "SELECT " + COLONNE_INTESTAZIONE + " FROM task_didattico t";
+    private static final String CONDIZIONE_TASK_APERTI_CLASSE = "t.classe_virtuale_Id = ? " +
+            "AND EXISTS (SELECT 1 FROM attivita a WHERE a.task_didattico_Id = t.Id AND a.Consegnato = 0)";
+    private static final String QUERY_TASK_APERTI_CLASSE = SELECT_INTESTAZIONI + " WHERE " + CONDIZIONE_TASK_APERTI_CLASSE;
+    private static final String COLONNE_TASK = "t.Titolo, t.Descrizione, t.DataDiScadenza, t.NumeroMassimoDiPuntiAssegnabili, c.CodiceUnivoco";
+    //il task fa riferimento alla classe con la chiave surrogata: il codice univoco si legge dalla classe
+    private static final String DA_TASK = " FROM task_didattico t JOIN classe_virtuale c ON c.Id = t.classe_virtuale_Id";
+
+    private static final CaricatoreInBlocco<String, TaskDidatticoDAO> caricatore =
+            new CaricatoreInBlocco<>(TaskDidatticoDAO::caricaDaDB);
+
     /**
      * Costruttore di default.
      */
@@ -34,32 +65,81 @@ public class TaskDidatticoDAO {
 
     /**
      * Carica dal database i dati del task utilizzando il titolo come chiave.
+     * La lettura viene raggruppata con quelle degli altri task richiesti nello stesso momento (vedi {@link CaricatoreInBlocco}).
      *
      * @return {@code 1} se il task è stato trovato e caricato correttamente,
      *         {@code 0} se non esiste alcun task con il titolo indicato,
      *         {@code -1} in caso di errore di accesso al database
      */
     public int caricaDaDB() {
-        String query = "SELECT * FROM task_didattico WHERE titolo = " + "'" + this.titolo + "'";
+        try {
+            TaskDidatticoDAO trovato = caricatore.carica(this.titolo);
+            if (trovato == null) {
+                return 0;
+            }
+            this.setTitolo(trovato.getTitolo());
+            this.setDescrizione(trovato.getDescrizione());
+            this.setDataDiScadenza(trovato.getDataDiScadenza());
+            this.setNumeroMassimoDiPuntiAssegnabili(trovato.getNumeroMassimoDiPuntiAssegnabili());
+            this.classeVirtualeAssociata.setCodiceUnivoco(trovato.getClasseVirtualeAssociata().getCodiceUnivoco());
+            return 1;
+        }catch(ClassNotFoundException | SQLException e){
+            e.printStackTrace();
+            return -1;
+        }
+    }
 
+    /**
+     * Carica dal database la sola descrizione del task, utilizzando il titolo come chiave.
+     * Gli elenchi di task non leggono la descrizione, che viene quindi richiesta solo quando serve.
+     * La lettura viene raggruppata con quelle degli altri task richiesti nello stesso momento (vedi {@link CaricatoreInBlocco}).
+     *
+     * @return {@code 1} se la descrizione è stata caricata correttamente,
+     *         {@code 0} se non esiste alcun task con il titolo indicato,
+     *         {@code -1} in caso di errore di accesso al database
+     */
+    public int caricaDescrizioneDaDB() {
         try {
-            ResultSet rs = DBManager.selectQuery(query);
-            if (rs.next()) {
-                this.setTitolo(rs.getString("titolo"));
-                this.setDescrizione(rs.getString("descrizione"));
-                this.setDataDiScadenza(rs.getDate("DataDiScadenza").toLocalDate());
-                this.setNumeroMassimoDiPuntiAssegnabili(rs.getInt("NumeroMassimoDiPuntiAssegnabili"));
-                this.classeVirtualeAssociata.setCodiceUnivoco(rs.getString("classe_virtuale_CodiceUnivoco"));
-                return 1;
-            } else {
+            TaskDidatticoDAO trovato = caricatore.carica(this.titolo);
+            if (trovato == null) {
                 return 0;
             }
+            this.setDescrizione(trovato.getDescrizione());
+            return 1;
         }catch(ClassNotFoundException | SQLException e){
             e.printStackTrace();
             return -1;
         }
     }
 
+    /**
+     * Carica con un'unica query i task con i titoli indicati, insieme al codice della classe virtuale associata.
+     *
+     * @param titoli titoli distinti dei task
+     * @return task trovati indicizzati per titolo
+     * @throws ClassNotFoundException se il driver del database non è disponibile
+     * @throws SQLException           in caso di errore di accesso al database
+     */
+    private static Map<String, TaskDidatticoDAO> caricaDaDB(List<String> titoli) throws ClassNotFoundException, SQLException {
+        Object[] parametri = DBManager.parametriIn(titoli);
+        String query = "SELECT " + COLONNE_TASK + DA_TASK + " WHERE t.Titolo IN (" + DBManager.segnaposto(parametri.length) + ")";
+        Map<String, TaskDidatticoDAO> ret = new HashMap<>();
+        DBManager.selectList(query, rs -> {
+            //colonne lette per posizione, nell'ordine della SELECT
+            TaskDidatticoDAO t = new TaskDidatticoDAO();
+            t.setTitolo(rs.getString(1));
+            t.setDescrizione(rs.getString(2));
+            t.setDataDiScadenza(rs.getDate(3).toLocalDate());
+            t.setNumeroMassimoDiPuntiAssegnabili(rs.getInt(4));
+            ClasseVirtualeDAO classe = new ClasseVirtualeDAO();
+            classe.setCodiceUnivoco(rs.getString(5));
+            t.setClasseVirtualeAssociata(classe);
+            ret.put(t.getTitolo(), t);
+            return t;
+        }, parametri);
+        return CaricatoreInBlocco.perChiaviRichieste(titoli, ret);
+    }
+
     /**
      * Inserisce un nuovo task didattico nel database.
      *
@@ -73,16 +153,14 @@ public class TaskDidatticoDAO {
     public int creaTask(String titolo, String descrizione, LocalDate dataDiScadenza, int numeroMassimoDiPuntiAssegnabili, String classeVirtualeCodiceUnivoco) {
 
         String query = "INSERT INTO task_didattico (" +
-                "Titolo, Descrizione, DataDiScadenza, NumeroMassimoDiPuntiAssegnabili, classe_virtuale_CodiceUnivoco" +
-                ") VALUES (" +
-                "'" + titolo.replace("'", "''")+ "', " +
-                "'" + descrizione.replace("'", "''") + "', " +
-                "'" + dataDiScadenza + "', " +
-                numeroMassimoDiPuntiAssegnabili + ", " +
-                "'" + classeVirtualeCodiceUnivoco + "'" +
-                ")";
+                "Titolo, Descrizione, DataDiScadenza, NumeroMassimoDiPuntiAssegnabili, classe_virtuale_Id" +
+                ") VALUES (?, ?, ?, ?, ?)";
         try {
-            return  DBManager.updateQuery(query);
+            Integer idClasse = ChiaviSurrogate.classe(classeVirtualeCodiceUnivoco);
+            if (idClasse == null) {
+                return -1; //classe virtuale inesistente
+            }
+            return  DBManager.updateQuery(query, titolo, descrizione, dataDiScadenza, numeroMassimoDiPuntiAssegnabili, idClasse);
         } catch (SQLException  | ClassNotFoundException e) {
             e.printStackTrace();
             return -1;
@@ -94,29 +172,71 @@ public class TaskDidatticoDAO {
      * Restituisce la lista dei task assegnati a una determinata classe virtuale e non ancora consegnati.
      *
      * @param codiceClasse il codice univoco della classe virtuale
-     * @return lista di {@link TaskDidatticoDAO} assegnati a quella classe
+     * @return lista delle intestazioni dei task assegnati a quella classe, oppure {@code null} in caso di errore
      */
-    public List<TaskDidatticoDAO> getTaskAssegnatiByClasse(String codiceClasse){
-        ArrayList<TaskDidatticoDAO> taskAssegnati = new ArrayList<>();
-        String query = "SELECT DISTINCT t.* FROM task_didattico t " +
-                "JOIN attivita a ON a.task_didattico_Titolo = t.Titolo " +
-                " WHERE a.Consegnato = 0 AND t.Classe_virtuale_CodiceUnivoco = '" + codiceClasse + "'";
+    public List<IntestazioneTaskDTO> getTaskAssegnatiByClasse(String codiceClasse){
+        try{
+            Integer idClasse = ChiaviSurrogate.classe(codiceClasse);
+            if (idClasse == null) {
+                return new ArrayList<>();
+            }
+            return DBManager.selectList(QUERY_TASK_APERTI_CLASSE, TaskDidatticoDAO::mappaIntestazione, idClasse);
+        } catch (SQLException | ClassNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
+    /**
+     * Restituisce una pagina dei task assegnati a una determinata classe virtuale e non ancora consegnati,
+     * ordinati per titolo. Ogni pagina riprende dall'ultimo task della precedente (vedi {@link DBManager#selectPagina}).
+     *
+     * @param codiceClasse il codice univoco della classe virtuale
+     * @param cursore      cursore restituito con la pagina precedente, {@code null} per la prima pagina
+     * @param dimensione   numero massimo di task della pagina
+     * @return pagina delle intestazioni dei task assegnati a quella classe, oppure {@code null} in caso di errore
+     */
+    public PaginaDTO<IntestazioneTaskDTO> getPaginaTaskAssegnatiByClasse(String codiceClasse, String cursore, int dimensione){
         try{
-            ResultSet rs = DBManager.selectQuery(query);
-            while (rs.next()) {
-                TaskDidatticoDAO t = new TaskDidatticoDAO();
-                t.setTitolo(rs.getString("Titolo"));
-                t.setDescrizione(rs.getString("Descrizione"));
-                t.setDataDiScadenza(rs.getDate("DataDiScadenza").toLocalDate());
-                t.setNumeroMassimoDiPuntiAssegnabili(rs.getInt("NumeroMassimoDiPuntiAssegnabili"));
-                taskAssegnati.add(t);
+            Integer idClasse = ChiaviSurrogate.classe(codiceClasse);
+            if (idClasse == null) {
+                return PaginaDTO.vuota();
             }
+            return DBManager.selectPagina(SELECT_INTESTAZIONI, CONDIZIONE_TASK_APERTI_CLASSE, "t.Titolo", cursore, dimensione,
+                    TaskDidatticoDAO::mappaIntestazione, IntestazioneTaskDTO::getTitolo, idClasse);
         } catch (SQLException | ClassNotFoundException e) {
             e.printStackTrace();
             return null;
         }
-        return taskAssegnati;
+    }
+
+    /**
+     * Converte la riga corrente di una query che inizia con {@link #COLONNE_INTESTAZIONE}
+     * direttamente nell'intestazione del task mostrata negli elenchi.
+     *
+     * @param rs result set posizionato sulla riga da convertire
+     * @return intestazione con titolo, data di scadenza e punti massimi
+     * @throws SQLException in caso di errore nella lettura delle colonne
+     */
+    static IntestazioneTaskDTO mappaIntestazione(ResultSet rs) throws SQLException {
+        return new IntestazioneTaskDTO(rs.getString(1), rs.getDate(2).toLocalDate(), rs.getInt(3));
+    }
+
+    /**
+     * Costruisce un task, senza descrizione, dalle colonne {@link #COLONNE_INTESTAZIONE} della riga corrente,
+     * per le query che lo collegano ad altri oggetti come le attività di un profilo.
+     *
+     * @param rs           result set posizionato sulla riga da convertire
+     * @param primaColonna posizione, a partire da 1, della colonna {@code t.Titolo} nella SELECT
+     * @return task con titolo, data di scadenza e punti massimi
+     * @throws SQLException in caso di errore nella lettura delle colonne
+     */
+    static TaskDidatticoDAO leggiIntestazione(ResultSet rs, int primaColonna) throws SQLException {
+        TaskDidatticoDAO t = new TaskDidatticoDAO();
+        t.setTitolo(rs.getString(primaColonna));
+        t.setDataDiScadenza(rs.getDate(primaColonna + 1).toLocalDate());
+        t.setNumeroMassimoDiPuntiAssegnabili(rs.getInt(primaColonna + 2));
+        return t;
     }
 
     // Getter e Setter
@@ -139,7 +259,7 @@ public class TaskDidatticoDAO {
 
     /**
      * Restituisce la descrizione del task.
-     * @return descrizione
+     * @return descrizione, {@code null} se il task è stato letto da un elenco
      */
     public String getDescrizione() {
         return descrizione;
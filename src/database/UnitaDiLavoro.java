@@ -0,0 +1,27 @@
+package database;
+
+import java.sql.SQLException;
+
+/**
+ * Insieme di operazioni sul database da eseguire in un'unica transazione
+ * tramite {@link DBManager#eseguiInTransazione(UnitaDiLavoro)}.
+ * <p>
+ * Tutte le query eseguite dai DAO all'interno di {@link #esegui()}, sullo stesso thread,
+ * utilizzano la stessa connessione e vengono confermate con un solo commit al termine.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ *
+ * @param <T> tipo del risultato prodotto dall'unità di lavoro
+ */
+@FunctionalInterface
+public interface UnitaDiLavoro<T> {
+
+    /**
+     * Esegue le operazioni dell'unità di lavoro.
+     *
+     * @return risultato da restituire al chiamante della transazione
+     * @throws ClassNotFoundException se il driver del database non è disponibile
+     * @throws SQLException           in caso di errore di accesso al database; la transazione viene annullata
+     */
+    T esegui() throws ClassNotFoundException, SQLException;
+}
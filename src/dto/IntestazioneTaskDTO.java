@@ -0,0 +1,63 @@
+package dto;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object (DTO) per rappresentare l'intestazione di un task didattico negli elenchi.
+ * <p>
+ * Contiene il titolo, che è l'identificativo, la data di scadenza e il numero massimo di punti assegnabili,
+ * ma non la descrizione: gli elenchi dei task non la leggono dal database, e la descrizione di un singolo task
+ * viene richiesta al Controller solo quando l'utente vuole visualizzarla.
+ * <p>
+ * Immutabilità: La classe è immutabile perché tutti i campi sono {@code final}
+ * e non ci sono metodi setter.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+public class IntestazioneTaskDTO {
+    private final String titolo;
+    private final LocalDate dataDiScadenza;
+    private final int numMaxDiPuntiAssegnabili;
+
+    /**
+     * Costruttore per creare un oggetto {@code IntestazioneTaskDTO}.
+     *
+     * @param titolo         titolo identificativo del task
+     * @param dataDiScadenza data di scadenza del task
+     * @param puntiMassimi   numero massimo di punti assegnabili del task
+     */
+    public IntestazioneTaskDTO(String titolo, LocalDate dataDiScadenza, int puntiMassimi) {
+        this.titolo = titolo;
+        this.dataDiScadenza = dataDiScadenza;
+        this.numMaxDiPuntiAssegnabili = puntiMassimi;
+    }
+
+    // Getter
+
+    /**
+     * Restituisce il titolo del task
+     *
+     * @return titolo come {@code String}
+     */
+    public String getTitolo() {
+        return titolo;
+    }
+
+    /**
+     * Restituisce la data di scadenza del task
+     *
+     * @return data di scadenza come {@code LocalDate}
+     */
+    public LocalDate getDataDiScadenza() {
+        return dataDiScadenza;
+    }
+
+    /**
+     * Restituisce il numero massimo di punti assegnabili del task
+     *
+     * @return il numero massimo di punti assegnabili come {@code int}
+     */
+    public int getNumMaxDiPuntiAssegnabili() {
+        return numMaxDiPuntiAssegnabili;
+    }
+}
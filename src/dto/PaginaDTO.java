@@ -0,0 +1,85 @@
+package dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Data Transfer Object (DTO) per rappresentare una pagina di un elenco letto dal database.
+ * <p>
+ * Le pagine sono ottenute con paginazione per chiave (keyset): ogni pagina contiene al più il numero di elementi
+ * richiesto, ordinati per chiave naturale, e il cursore da passare alla richiesta successiva per ottenere
+ * gli elementi seguenti. Il cursore è un valore opaco; è {@code null} sull'ultima pagina.
+ * <p>
+ * Immutabilità: La classe è immutabile perché tutti i campi sono {@code final},
+ * la lista degli elementi non è modificabile e non ci sono metodi setter.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ *
+ * @param <T> tipo degli elementi della pagina
+ */
+public class PaginaDTO<T> {
+    private final List<T> elementi;
+    private final String cursoreSuccessivo;
+
+    /**
+     * Costruttore per creare un oggetto {@code PaginaDTO}.
+     *
+     * @param elementi          elementi della pagina
+     * @param cursoreSuccessivo cursore della pagina successiva, {@code null} se questa è l'ultima
+     */
+    public PaginaDTO(List<T> elementi, String cursoreSuccessivo) {
+        this.elementi = List.copyOf(elementi);
+        this.cursoreSuccessivo = cursoreSuccessivo;
+    }
+
+    /**
+     * Restituisce una pagina vuota, che è anche l'ultima.
+     *
+     * @return pagina senza elementi
+     */
+    public static <T> PaginaDTO<T> vuota() {
+        return new PaginaDTO<>(List.of(), null);
+    }
+
+    /**
+     * Restituisce una pagina con gli stessi elementi convertiti e lo stesso cursore.
+     *
+     * @param conversione funzione applicata a ogni elemento
+     * @return pagina con gli elementi convertiti
+     */
+    public <R> PaginaDTO<R> converti(Function<? super T, ? extends R> conversione) {
+        List<R> convertiti = new ArrayList<>(elementi.size());
+        for (T elemento : elementi) {
+            convertiti.add(conversione.apply(elemento));
+        }
+        return new PaginaDTO<>(convertiti, cursoreSuccessivo);
+    }
+
+    /**
+     * Restituisce gli elementi della pagina.
+     *
+     * @return lista non modificabile degli elementi
+     */
+    public List<T> getElementi() {
+        return elementi;
+    }
+
+    /**
+     * Restituisce il cursore da passare per ottenere la pagina successiva.
+     *
+     * @return cursore come {@code String}, {@code null} se questa è l'ultima pagina
+     */
+    public String getCursoreSuccessivo() {
+        return cursoreSuccessivo;
+    }
+
+    /**
+     * Indica se dopo questa pagina non ci sono altri elementi.
+     *
+     * @return true se questa è l'ultima pagina
+     */
+    public boolean isUltima() {
+        return cursoreSuccessivo == null;
+    }
+}
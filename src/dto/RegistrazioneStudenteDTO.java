@@ -0,0 +1,70 @@
+package dto;
+
+/**
+ * Data Transfer Object (DTO) con i dati necessari a registrare uno studente.
+ * <p>
+ * Viene passato dalla boundary al Controller per le registrazioni in blocco,
+ * ad esempio l'importazione degli studenti di un intero istituto.
+ * <p>
+ * Immutabilità: La classe è immutabile perché tutti i campi sono {@code final}
+ * e non ci sono metodi setter.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+public class RegistrazioneStudenteDTO {
+    private final String nome;
+    private final String cognome;
+    private final String email;
+    private final String password;
+
+    /**
+     * Costruttore per creare un oggetto {@code RegistrazioneStudenteDTO}.
+     *
+     * @param nome nome dello studente
+     * @param cognome cognome dello studente
+     * @param email email istituzionale dello studente
+     * @param password password per l'accesso
+     */
+    public RegistrazioneStudenteDTO(String nome, String cognome, String email, String password) {
+        this.nome = nome;
+        this.cognome = cognome;
+        this.email = email;
+        this.password = password;
+    }
+
+    /**
+     * Restituisce il nome dello studente.
+     *
+     * @return nome come {@code String}
+     */
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * Restituisce il cognome dello studente.
+     *
+     * @return cognome come {@code String}
+     */
+    public String getCognome() {
+        return cognome;
+    }
+
+    /**
+     * Restituisce l'email dello studente.
+     *
+     * @return email come {@code String}
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Restituisce la password dello studente.
+     *
+     * @return password come {@code String}
+     */
+    public String getPassword() {
+        return password;
+    }
+}
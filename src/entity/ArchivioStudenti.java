@@ -0,0 +1,218 @@
+package entity;
+
+import database.StudenteDAO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Elenco compatto e immutabile degli studenti iscritti, letto all'avvio quando la piattaforma è in caricamento differito
+ * (vedi {@link EntityPiattaformaDigitale#caricamentoDifferito}).
+ * <p>
+ * Invece di un {@link EntityStudente} per studente, i dati vengono salvati per colonne, in array paralleli
+ * indicizzati dalla riga dello studente:
+ * -nome, cognome e password sono deduplicati: i valori ripetuti condividono la stessa {@code String}
+ * -i codici delle classi virtuali sono codificati con un dizionario: per ogni studente viene salvato
+ *  solo l'indice del codice, oppure -1 se lo studente non appartiene a una classe
+ * -l'indice per email è una tabella ad indirizzamento aperto di {@code int}, senza oggetti per ogni voce
+ * <p>
+ * Il profilo personale non viene salvato: viene letto dal database quando lo studente viene utilizzato
+ * (vedi {@link EntityStudente#getProfiloPersonale()}). L'{@link EntityStudente} di una riga viene costruito
+ * solo quando serve al Controller, con {@link #vista(String)}, e conservato dalla piattaforma.
+ * <p>
+ * Poiché non viene mai modificato dopo la costruzione, l'archivio può essere letto da più thread senza lock.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+final class ArchivioStudenti {
+    static final ArchivioStudenti VUOTO = leggi(Stream.empty());
+
+    private final String[] email;
+    private final String[] nome;
+    private final String[] cognome;
+    private final String[] password;
+    private final String[] codiciClasse;
+    private final int[] classe;
+    //hash dell'email normalizzata di ogni riga, per scartare le righe diverse senza normalizzarne l'email
+    private final int[] hashEmail;
+    //riga + 1 di ogni posizione occupata della tabella, 0 per le posizioni libere
+    private final int[] tabella;
+
+    /**
+     * @param email        indirizzi email istituzionali
+     * @param nome         nomi
+     * @param cognome      cognomi
+     * @param password     password
+     * @param codiciClasse dizionario dei codici delle classi virtuali
+     * @param classe       indice in {@code codiciClasse} della classe di ogni studente, -1 se non appartiene a una classe
+     */
+    private ArchivioStudenti(String[] email, String[] nome, String[] cognome, String[] password, String[] codiciClasse, int[] classe) {
+        this.email = email;
+        this.nome = nome;
+        this.cognome = cognome;
+        this.password = password;
+        this.codiciClasse = codiciClasse;
+        this.classe = classe;
+        this.hashEmail = new int[email.length];
+        //capacità almeno doppia del numero di studenti: le sequenze di posizioni occupate restano brevi
+        int capacita = Integer.highestOneBit(Math.max(1, email.length) * 2 - 1) << 1;
+        this.tabella = new int[capacita];
+        for (int riga = 0; riga < email.length; riga++) {
+            int hash = EntityPiattaformaDigitale.normalizzaEmail(email[riga]).hashCode();
+            hashEmail[riga] = hash;
+            int posizione = posizione(hash);
+            while (tabella[posizione] != 0) {
+                posizione = (posizione + 1) & (capacita - 1);
+            }
+            tabella[posizione] = riga + 1;
+        }
+    }
+
+    /**
+     * Costruisce l'archivio leggendo gli studenti dallo stream, senza conservare gli oggetti letti.
+     *
+     * @param studenti studenti con email, nome, cognome, password ed eventuale classe virtuale
+     * @return archivio degli studenti letti
+     */
+    static ArchivioStudenti leggi(Stream<StudenteDAO> studenti) {
+        List<String> email = new ArrayList<>();
+        List<String> nome = new ArrayList<>();
+        List<String> cognome = new ArrayList<>();
+        List<String> password = new ArrayList<>();
+        List<Integer> classe = new ArrayList<>();
+        Map<String, String> valori = new HashMap<>();
+        Map<String, Integer> dizionarioClassi = new HashMap<>();
+        List<String> codiciClasse = new ArrayList<>();
+        studenti.forEach(s -> {
+            email.add(s.getIndirizzoEmailIstituzionale());
+            nome.add(deduplica(valori, s.getNome()));
+            cognome.add(deduplica(valori, s.getCognome()));
+            password.add(deduplica(valori, s.getPassword()));
+            String codice = s.getClasseVirtualeCodiceUnivoco();
+            if (codice == null) {
+                classe.add(-1);
+            } else {
+                classe.add(dizionarioClassi.computeIfAbsent(codice, c -> {
+                    codiciClasse.add(c);
+                    return codiciClasse.size() - 1;
+                }));
+            }
+        });
+        int[] indiciClasse = new int[classe.size()];
+        for (int i = 0; i < indiciClasse.length; i++) {
+            indiciClasse[i] = classe.get(i);
+        }
+        return new ArchivioStudenti(email.toArray(new String[0]), nome.toArray(new String[0]), cognome.toArray(new String[0]),
+                password.toArray(new String[0]), codiciClasse.toArray(new String[0]), indiciClasse);
+    }
+
+    /**
+     * Costruisce lo studente con l'indirizzo email indicato, senza profilo personale, che verrà letto al primo utilizzo.
+     *
+     * @param emailNormalizzata email dello studente normalizzata con {@link EntityPiattaformaDigitale#normalizzaEmail(String)}
+     * @return nuovo studente, oppure {@code null} se non è presente nell'archivio
+     */
+    EntityStudente vista(String emailNormalizzata) {
+        int riga = riga(emailNormalizzata);
+        if (riga == -1) {
+            return null;
+        }
+        String codice = (classe[riga] == -1) ? null : codiciClasse[classe[riga]];
+        return new EntityStudente(nome[riga], cognome[riga], email[riga], password[riga], codice, null);
+    }
+
+    /**
+     * Restituisce il numero di studenti nell'archivio.
+     *
+     * @return numero di studenti
+     */
+    int size() {
+        return email.length;
+    }
+
+    /**
+     * Stima la memoria occupata dall'archivio, contando una sola volta le stringhe condivise tra più righe.
+     * Le dimensioni sono quelle di una JVM a 64 bit con riferimenti compressi e stringhe compatte:
+     * 16 byte di intestazione per ogni array, 4 byte per riferimento o {@code int}, 24 byte per ogni {@code String}
+     * più l'array dei caratteri, di un byte per carattere se il testo è Latin-1.
+     *
+     * @return byte occupati, approssimati
+     */
+    long stimaByte() {
+        long ret = 0;
+        for (Object[] colonna : new Object[][]{email, nome, cognome, password, codiciClasse}) {
+            ret += 16 + 4L * colonna.length;
+        }
+        ret += 3 * 16 + 4L * (classe.length + hashEmail.length + tabella.length);
+
+        Set<String> contate = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String[] colonna : new String[][]{email, nome, cognome, password, codiciClasse}) {
+            for (String s : colonna) {
+                if (s != null && contate.add(s)) {
+                    boolean latin1 = s.chars().allMatch(c -> c < 256);
+                    ret += 24 + 16 + (latin1 ? s.length() : 2L * s.length());
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Restituisce il riepilogo della memoria occupata, in totale e ogni 100.000 studenti.
+     *
+     * @return riepilogo testuale
+     */
+    String riepilogoMemoria() {
+        long byteOccupati = stimaByte();
+        long perCentomila = (size() == 0) ? 0 : byteOccupati * 100_000 / size();
+        return String.format("Archivio studenti: %d studenti, %d classi, %.1f MB (%.1f MB ogni 100.000 studenti)",
+                size(), codiciClasse.length, byteOccupati / 1048576.0, perCentomila / 1048576.0);
+    }
+
+    /**
+     * Cerca la riga dello studente con l'indirizzo email indicato.
+     *
+     * @param emailNormalizzata email normalizzata
+     * @return riga dello studente, oppure -1 se non è presente
+     */
+    private int riga(String emailNormalizzata) {
+        int hash = emailNormalizzata.hashCode();
+        int posizione = posizione(hash);
+        while (tabella[posizione] != 0) {
+            int riga = tabella[posizione] - 1;
+            if (hashEmail[riga] == hash && EntityPiattaformaDigitale.normalizzaEmail(email[riga]).equals(emailNormalizzata)) {
+                return riga;
+            }
+            posizione = (posizione + 1) & (tabella.length - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Restituisce la posizione iniziale nella tabella dell'hash indicato.
+     *
+     * @param hash hash dell'email normalizzata
+     * @return posizione nella tabella
+     */
+    private int posizione(int hash) {
+        //i bit alti partecipano alla posizione come in HashMap
+        return (hash ^ (hash >>> 16)) & (tabella.length - 1);
+    }
+
+    /**
+     * Restituisce la copia già salvata del valore, oppure salva e restituisce il valore stesso.
+     *
+     * @param valori valori già salvati
+     * @param valore valore da deduplicare, può essere {@code null}
+     * @return istanza condivisa del valore
+     */
+    private static String deduplica(Map<String, String> valori, String valore) {
+        return (valore == null) ? null : valori.computeIfAbsent(valore, v -> v);
+    }
+}
@@ -0,0 +1,20 @@
+package entity;
+
+/**
+ * Notifica dell'avanzamento del caricamento degli studenti iscritti,
+ * utilizzata da {@link EntityPiattaformaDigitale#getStudentiIscritti(AvanzamentoCaricamento)}.
+ * <p>
+ * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
+ */
+@FunctionalInterface
+public interface AvanzamentoCaricamento {
+
+    /**
+     * Riceve il numero di studenti già costruiti. Può essere invocato contemporaneamente da più thread,
+     * e i valori ricevuti da thread diversi possono arrivare non in ordine.
+     *
+     * @param completati studenti costruiti finora
+     * @param totale     studenti da costruire
+     */
+    void aggiorna(int completati, int totale);
+}
@@ -1,6 +1,9 @@
 package entity;
 
+import database.RiconoscimentoDAO;
+
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Rappresenta un badge assegnato a uno studente o utente all'interno del sistema.
@@ -26,6 +29,24 @@ public class EntityBadge {
         this.nome = nome;
     }
 
+    /**
+     * Assegna il badge, con un'unica scrittura in blocco, a tutti i profili personali che ne soddisfano
+     * i requisiti e che non lo hanno ancora ottenuto. Utile per recuperare i badge di profili esistenti
+     * quando vengono introdotti nuovi badge o nuovi criteri.
+     *
+     * @param puntiMinimi punti totali richiesti
+     * @param taskMinimi  numero di task svolti richiesto
+     * @return numero di badge assegnati, -1 in caso di errore
+     */
+    public int assegnaAiProfiliIdonei(int puntiMinimi, int taskMinimi) {
+        RiconoscimentoDAO riconoscimentoDAO = new RiconoscimentoDAO();
+        List<String> destinatari = riconoscimentoDAO.getEmailIdoneeSenzaBadge(this.nome, puntiMinimi, taskMinimi);
+        if (destinatari == null) {
+            return -1;
+        }
+        return riconoscimentoDAO.assegnaBadgeInBlocco(destinatari, this.nome);
+    }
+
     /**
      * Restituisce il nome del badge.
      *
@@ -1,10 +1,10 @@
 package entity;
 
-import database.StudenteDAO;
+import dto.PaginaDTO;
 import dto.StudenteDTO;
 import database.AttivitaDAO;
 import database.TaskDidatticoDAO;
-import dto.TaskDidatticoDTO;
+import dto.IntestazioneTaskDTO;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -28,7 +28,8 @@ public class EntityClasseVirtuale {
     private String codiceUnivoco;
     private String nome;
     private ArrayList<EntityStudente> studentiIscritti;
-    private ArrayList<EntityTaskDidattico> taskAssegnati;
+    //task creati tramite questa istanza, aggiunti da creaTask senza rileggere quelli della classe
+    private ArrayList<EntityTaskDidattico> taskAssegnati = new ArrayList<>();
 
     /**
      * Costruttore di default. Inizializza l'oggetto senza valori assegnati.
@@ -51,19 +52,24 @@ public class EntityClasseVirtuale {
     /**
      * Restituisce la lista degli studenti della classe che hanno consegnato almeno un task.
      *
-     * @return lista di studenti come {@link StudenteDTO}
+     * @return lista di studenti come {@link StudenteDTO}, vuota in caso di errore
      */
     public ArrayList<StudenteDTO> getStudentiConTaskConsegnato() {
-        ArrayList<StudenteDTO> listaStudentiConsegnato = new ArrayList<>();
         AttivitaDAO attivitaDAO = new AttivitaDAO();
-        for (StudenteDAO studenteDAO :  attivitaDAO.getStudentiConTaskConsegnato(this.codiceUnivoco)) {
-            String nome = studenteDAO.getNome();
-            String cognome = studenteDAO.getCognome();
-            String emailStudente = studenteDAO.getIndirizzoEmailIstituzionale();
-            StudenteDTO temp = new StudenteDTO(nome, cognome, emailStudente);
-            listaStudentiConsegnato.add(temp);
-        }
-        return listaStudentiConsegnato;
+        ArrayList<StudenteDTO> listaStudentiConsegnato = attivitaDAO.getStudentiConTaskConsegnato(this.codiceUnivoco);
+        return (listaStudentiConsegnato != null) ? listaStudentiConsegnato : new ArrayList<>();
+    }
+
+    /**
+     * Restituisce una pagina degli studenti della classe che hanno consegnato almeno un task, ordinati per email.
+     *
+     * @param cursore    cursore restituito con la pagina precedente, {@code null} per la prima pagina
+     * @param dimensione numero massimo di studenti della pagina
+     * @return pagina di studenti come {@link StudenteDTO}, oppure {@code null} in caso di errore
+     */
+    public PaginaDTO<StudenteDTO> getPaginaStudentiConTaskConsegnato(String cursore, int dimensione) {
+        AttivitaDAO attivitaDAO = new AttivitaDAO();
+        return attivitaDAO.getPaginaStudentiConTaskConsegnato(this.codiceUnivoco, cursore, dimensione);
     }
 
     /**
@@ -95,21 +101,25 @@ public class EntityClasseVirtuale {
      * Restituisce la lista aggiornata dei task didattici assegnati alla classe.
      * I dati sono recuperati dal database tramite DAO.
      *
-     * @return lista di {@link TaskDidatticoDTO}
+     * @return lista di {@link IntestazioneTaskDTO}, vuota in caso di errore
      */
-    public List<TaskDidatticoDTO> getListaTaskAssegnati() {
-        ArrayList<TaskDidatticoDTO> listaTaskAssegnati = new ArrayList<>();
+    public List<IntestazioneTaskDTO> getListaTaskAssegnati() {
         TaskDidatticoDAO taskDidattico = new TaskDidatticoDAO();
-        for(TaskDidatticoDAO task :taskDidattico.getTaskAssegnatiByClasse(this.codiceUnivoco)){
-            String titolo = task.getTitolo();
-            String descrizione = task.getDescrizione();
-            LocalDate dataDiScadenza = task.getDataDiScadenza();
-            int numeroMaxDiPuntiAssegnabili = task.getNumeroMassimoDiPuntiAssegnabili();
-
-            TaskDidatticoDTO temp = new TaskDidatticoDTO(titolo,descrizione,dataDiScadenza,numeroMaxDiPuntiAssegnabili);
-            listaTaskAssegnati.add(temp);
-        }
-        return listaTaskAssegnati;
+        List<IntestazioneTaskDTO> listaTaskAssegnati = taskDidattico.getTaskAssegnatiByClasse(this.codiceUnivoco);
+        return (listaTaskAssegnati != null) ? listaTaskAssegnati : new ArrayList<>();
+    }
+
+    /**
+     * Restituisce una pagina dei task didattici assegnati alla classe, ordinati per titolo.
+     * I dati sono recuperati dal database tramite DAO.
+     *
+     * @param cursore    cursore restituito con la pagina precedente, {@code null} per la prima pagina
+     * @param dimensione numero massimo di task della pagina
+     * @return pagina di {@link IntestazioneTaskDTO}, oppure {@code null} in caso di errore
+     */
+    public PaginaDTO<IntestazioneTaskDTO> getPaginaTaskAssegnati(String cursore, int dimensione) {
+        TaskDidatticoDAO taskDidattico = new TaskDidatticoDAO();
+        return taskDidattico.getPaginaTaskAssegnatiByClasse(this.codiceUnivoco, cursore, dimensione);
     }
 
     // Getter e Setter
@@ -21,7 +21,8 @@ public class EntityDocente {
     private String cognome;
     private String email;
     private String password;
-    private ArrayList<EntityClasseVirtuale> listaClassi;
+    //sostituita interamente da setListaClassi e mai modificata dopo: volatile perché i thread vedano subito la nuova lista
+    private volatile ArrayList<EntityClasseVirtuale> listaClassi;
 
     /**
      * Costruttore di default che inizializza l'oggetto docente senza parametri.
@@ -1,9 +1,19 @@
 package entity;
 
 import database.DocenteDAO;
+import database.ProfiloPersonaleDAO;
 import database.StudenteDAO;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Rappresenta il contenitore principale della piattaforma digitale,
@@ -16,32 +26,62 @@ import java.util.ArrayList;
  * mediante indirizzo email. Integra le funzionalità DAO per il salvataggio
  * e recupero dei dati da e verso il database
  * <p>
+ * Docenti e studenti iscritti sono indicizzati in {@link ConcurrentHashMap} per email normalizzata
+ * (vedi {@link #normalizzaEmail(String)}), come nel database, che confronta gli indirizzi senza distinguere
+ * maiuscole e minuscole: la ricerca di un utente richiede tempo costante e le registrazioni possono
+ * avvenire da più thread.
+ * <p>
+ * In caricamento differito gli studenti vengono letti all'avvio in un {@link ArchivioStudenti} compatto, e l'indice
+ * contiene solo gli studenti già utilizzati: gli altri vengono costruiti dall'archivio alla prima ricerca.
+ * <p>
  * Autori: Catini Simone, D'Avanzo Francesco, Del Verme Nicola, Di Pinto Francesco
  */
 public class EntityPiattaformaDigitale {
 
-    private static EntityPiattaformaDigitale instance = null;
-    private ArrayList<EntityDocente> docentiIscritti;
-    private ArrayList<EntityStudente> studentiIscritti;
+    //true: all'avvio vengono caricati solo i profili degli studenti con l'accesso più recente, gli altri al primo utilizzo
+    public static boolean caricamentoDifferito = true;
+    //numero di studenti, in ordine di ultimo accesso, di cui caricare il profilo all'avvio in caricamento differito
+    public static int studentiDaPrecaricare = 100;
+
+    //studenti costruiti da ogni sotto-attività del fork-join in getStudentiIscritti
+    private static final int STUDENTI_PER_ATTIVITA = 1000;
+    private static final Logger LOG = Logger.getLogger(EntityPiattaformaDigitale.class.getName());
+
+    //volatile: l'istanza viene pubblicata agli altri thread solo dopo che il costruttore è terminato
+    private static volatile EntityPiattaformaDigitale instance = null;
+    //sostituiti interamente dai setter: volatile perché i thread vedano subito i nuovi indici
+    private volatile ConcurrentHashMap<String, EntityDocente> docentiIscritti;
+    private volatile ConcurrentHashMap<String, EntityStudente> studentiIscritti;
+    //studenti letti all'avvio in caricamento differito, costruiti in studentiIscritti quando vengono cercati
+    private volatile ArchivioStudenti archivioStudenti = ArchivioStudenti.VUOTO;
 
     /**
      * Costruttore privato per implementare il pattern Singleton.
      */
     private EntityPiattaformaDigitale() {
-        this.docentiIscritti = new ArrayList<>();
-        this.studentiIscritti = new ArrayList<>();
+        this.docentiIscritti = new ConcurrentHashMap<>();
+        this.studentiIscritti = new ConcurrentHashMap<>();
     }
 
     /**
-     * Restituisce l'unica istanza della piattaforma digitale.
+     * Restituisce l'unica istanza della piattaforma digitale, creandola alla prima invocazione.
+     * La creazione avviene una sola volta anche se più thread invocano il metodo insieme;
+     * una volta creata, l'istanza viene restituita senza lock.
      *
      * @return istanza Singleton della piattaforma
      */
     public static EntityPiattaformaDigitale getInstance() {
-        if (instance == null) {
-            instance = new EntityPiattaformaDigitale();
+        EntityPiattaformaDigitale istanza = instance;
+        if (istanza == null) {
+            synchronized (EntityPiattaformaDigitale.class) {
+                istanza = instance;
+                if (istanza == null) {
+                    istanza = new EntityPiattaformaDigitale();
+                    instance = istanza;
+                }
+            }
         }
-        return instance;
+        return istanza;
     }
 
     /**
@@ -62,11 +102,55 @@ public class EntityPiattaformaDigitale {
             studente.setCognome(cognome);
             studente.setPassword(password);
             studente.setEmail(email);
-            studentiIscritti.add(studente);
+            studentiIscritti.put(normalizzaEmail(email), studente);
         }
         return ret;
     }
 
+    /**
+     * Registra più studenti nella piattaforma con una scrittura in blocco, creando anche i loro profili personali.
+     * Le due scritture vanno eseguite in una transazione: se la creazione dei profili fallisce,
+     * l'inserimento degli studenti deve essere annullato dal chiamante.
+     * Gli studenti vengono aggiunti all'elenco interno solo se entrambe le scritture vanno a buon fine.
+     *
+     * @param studenti studenti da registrare, con nome, cognome, email e password
+     * @return numero di studenti registrati, -1 in caso di errore
+     */
+    public int registraStudenti(List<EntityStudente> studenti) {
+        List<StudenteDAO> daScrivere = new ArrayList<>(studenti.size());
+        List<String> emails = new ArrayList<>(studenti.size());
+        for (EntityStudente studente : studenti) {
+            StudenteDAO studenteDAO = new StudenteDAO();
+            studenteDAO.setIndirizzoEmailIstituzionale(studente.getEmail());
+            studenteDAO.setNome(studente.getNome());
+            studenteDAO.setCognome(studente.getCognome());
+            studenteDAO.setPassword(studente.getPassword());
+            studenteDAO.setClasseVirtualeCodiceUnivoco(studente.getCodiceClasseAssociata());
+            daScrivere.add(studenteDAO);
+            emails.add(studente.getEmail());
+        }
+
+        int ret = new StudenteDAO().scriviSuDBInBlocco(daScrivere);
+        if (ret == -1 || new ProfiloPersonaleDAO().scriviSuDBInBlocco(emails) == -1) {
+            return -1;
+        }
+        for (EntityStudente studente : studenti) {
+            studente.getProfiloPersonale().setEmailStudente(studente.getEmail());
+            studentiIscritti.put(normalizzaEmail(studente.getEmail()), studente);
+        }
+        return ret;
+    }
+
+    /**
+     * Rimuove dall'elenco interno della piattaforma lo studente con l'indirizzo email indicato.
+     * Utilizzato per annullare una registrazione la cui scrittura sul database non è stata confermata.
+     *
+     * @param email email dello studente da rimuovere
+     */
+    public void rimuoviStudente(String email) {
+        this.studentiIscritti.remove(normalizzaEmail(email));
+    }
+
     /**
      * Registra un nuovo docente nella piattaforma e lo salva nel database.
      *
@@ -84,7 +168,7 @@ public class EntityPiattaformaDigitale {
             docente.setCognome(cognome);
             docente.setPassword(password);
             docente.setEmail(email);
-            docentiIscritti.add(docente);
+            docentiIscritti.put(normalizzaEmail(email), docente);
         }
         return ret;
     }
@@ -122,97 +206,246 @@ public class EntityPiattaformaDigitale {
 
     /**
      * Restituisce un docente iscritto cercandolo tramite l'indirizzo email
-     * all'interno della lista interna della piattaforma digitale.
+     * nell'indice interno della piattaforma digitale.
      *
-     * @param email email del docente
+     * @param email email del docente, senza distinzione tra maiuscole e minuscole
      * @return docente corrispondente, oppure null se non trovato
      */
     public EntityDocente getDocenteByEmail(String email) {
-        for (EntityDocente docente : this.docentiIscritti) {
-            if (docente.getEmail().equals(email)) {
-                return docente;
-            }
-        }
-        return null;
+        return (email == null) ? null : this.docentiIscritti.get(normalizzaEmail(email));
     }
 
     /**
      * Restituisce uno studente iscritto cercandolo tramite l'indirizzo email
-     * all'interno della lista interna della piattaforma digitale.
+     * nell'indice interno della piattaforma digitale.
      *
-     * @param email email dello studente
+     * @param email email dello studente, senza distinzione tra maiuscole e minuscole
      * @return studente corrispondente, oppure null se non trovato
      */
     public EntityStudente getStudenteByEmail(String email) {
-        for (EntityStudente studente : this.studentiIscritti) {
-            if (studente.getEmail().equals(email)) {
-                return studente;
-            }
+        if (email == null) {
+            return null;
         }
-        return null;
+        String chiave = normalizzaEmail(email);
+        EntityStudente studente = this.studentiIscritti.get(chiave);
+        if (studente == null) {
+            //costruito una sola volta anche se più thread lo cercano insieme
+            studente = this.studentiIscritti.computeIfAbsent(chiave, archivioStudenti::vista);
+        }
+        return studente;
+    }
+
+    /**
+     * Restituisce la chiave con cui un indirizzo email viene indicizzato: senza spazi iniziali e finali e in minuscolo.
+     *
+     * @param email indirizzo email
+     * @return indirizzo email normalizzato
+     */
+    public static String normalizzaEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
 
     /**
      * Restituisce la lista aggiornata di tutti i docenti iscritti,
-     * recuperandola dal database.
+     * recuperandola dal database. Le righe vengono lette in streaming e convertite
+     * direttamente in entità, senza materializzare una lista intermedia di DAO.
      *
      * @return lista di docenti presenti nel sistema
      */
     public ArrayList<EntityDocente> getDocentiIscritti() {
         ArrayList<EntityDocente> listaDocentiIscritti = new ArrayList<>();
         DocenteDAO docenteDAO = new DocenteDAO();
-        ArrayList<DocenteDAO> listDocenteDAO = docenteDAO.getListaDocenti();
-        for (DocenteDAO docenteDAO1 : listDocenteDAO) {
-            String emailDocente = docenteDAO1.getIndirizzoEmailIstituzionale();
-            String nome = docenteDAO1.getNome();
-            String cognome = docenteDAO1.getCognome();
-            String password = docenteDAO1.getPassword();
+        try (Stream<DocenteDAO> streamDocenti = docenteDAO.getStreamDocenti()) {
+            streamDocenti.forEach(docenteDAO1 -> {
+                String emailDocente = docenteDAO1.getIndirizzoEmailIstituzionale();
+                String nome = docenteDAO1.getNome();
+                String cognome = docenteDAO1.getCognome();
+                String password = docenteDAO1.getPassword();
 
-            EntityDocente temp = new EntityDocente(nome, cognome, emailDocente,password);
+                EntityDocente temp = new EntityDocente(nome, cognome, emailDocente,password);
 
-            listaDocentiIscritti.add(temp);
+                listaDocentiIscritti.add(temp);
+            });
         }
         return listaDocentiIscritti;
     }
 
+    /**
+     * Carica dal database gli studenti iscritti e sostituisce l'indice interno.
+     * <p>
+     * Con {@link #caricamentoDifferito} gli studenti vengono letti in streaming in un {@link ArchivioStudenti},
+     * senza costruire un {@link EntityStudente} per ciascuno; vengono costruiti subito, con il profilo personale
+     * caricato in blocco, solo i {@link #studentiDaPrecaricare} studenti che hanno fatto accesso più di recente.
+     * La memoria occupata dall'archivio viene scritta nel log. Altrimenti vengono costruiti tutti gli studenti,
+     * con i profili, con {@link #getStudentiIscritti()}.
+     */
+    public void caricaStudentiIscritti() {
+        if (!caricamentoDifferito) {
+            setStudentiIscritti(getStudentiIscritti());
+            return;
+        }
+        StudenteDAO studenteDAO = new StudenteDAO();
+        ArchivioStudenti archivio;
+        try (Stream<StudenteDAO> streamStudenti = studenteDAO.getStreamStudenti()) {
+            archivio = ArchivioStudenti.leggi(streamStudenti);
+        }
+        LOG.info(archivio::riepilogoMemoria);
+
+        ConcurrentHashMap<String, EntityStudente> indice = new ConcurrentHashMap<>();
+        List<String> recenti = (studentiDaPrecaricare > 0) ? studenteDAO.getEmailAccessiRecenti(studentiDaPrecaricare) : null;
+        Map<String, ProfiloPersonaleDAO> profili = (recenti == null || recenti.isEmpty()) ? null : ProfiloPersonaleDAO.caricaConAttivitaDaDB(recenti);
+        if (profili != null) {
+            for (String email : recenti) {
+                String chiave = normalizzaEmail(email);
+                EntityStudente studente = archivio.vista(chiave);
+                ProfiloPersonaleDAO profiloDAO = profili.get(email);
+                if (studente != null && profiloDAO != null) {
+                    EntityProfiloPersonale profilo = new EntityProfiloPersonale();
+                    profilo.impostaDaDAO(studente.getEmail(), profiloDAO);
+                    indice.put(chiave, new EntityStudente(studente.getNome(), studente.getCognome(), studente.getEmail(),
+                            studente.getPassword(), studente.getCodiceClasseAssociata(), profilo));
+                }
+            }
+        }
+        this.studentiIscritti = indice;
+        this.archivioStudenti = archivio;
+    }
+
     /**
      * Restituisce la lista aggiornata di tutti gli studenti iscritti,
-     * recuperandola dal database.
+     * recuperandola dal database. Le righe degli studenti vengono lette in streaming e i profili personali,
+     * con le relative attività, vengono caricati in blocco; gli studenti vengono poi costruiti in parallelo
+     * sul {@link ForkJoinPool} comune, a gruppi di {@code STUDENTI_PER_ATTIVITA}.
+     * <p>
+     * Tutti i profili, le attività e i task vengono letti con {@link ProfiloPersonaleDAO#caricaTuttiConAttivitaDaDB()},
+     * che legge le tabelle per intero con tre query; se il caricamento in blocco fallisce, ogni studente recupera
+     * il proprio profilo singolarmente. In caricamento differito (vedi {@link #caricamentoDifferito}) gli studenti vengono invece letti
+     * da {@link #caricaStudentiIscritti()} in un {@link ArchivioStudenti}.
      *
      * @return lista di studenti presenti nel sistema
+     * @see #getStudentiIscritti(AvanzamentoCaricamento)
      */
     public ArrayList<EntityStudente> getStudentiIscritti() {
-        ArrayList<EntityStudente> listaStudentiIscritti = new ArrayList<>();
+        return getStudentiIscritti((completati, totale) -> { });
+    }
+
+    /**
+     * Come {@link #getStudentiIscritti()}, notificando l'avanzamento della costruzione degli studenti.
+     *
+     * @param avanzamento notificato dai thread del fork-join ogni volta che un gruppo di studenti è stato costruito
+     * @return lista di studenti presenti nel sistema
+     */
+    public ArrayList<EntityStudente> getStudentiIscritti(AvanzamentoCaricamento avanzamento) {
+        ArrayList<StudenteDAO> studenti = new ArrayList<>();
         StudenteDAO studenteDAO = new StudenteDAO();
-        ArrayList<StudenteDAO> listStudentiDAO = (ArrayList<StudenteDAO>) studenteDAO.getListaStudenti();
-        for (StudenteDAO studenteDAO1 : listStudentiDAO) {
-            String emailStudente = studenteDAO1.getIndirizzoEmailIstituzionale();
-            String nomeStudente = studenteDAO1.getNome();
-            String cognomeStudente = studenteDAO1.getCognome();
-            String passwordStudente = studenteDAO1.getPassword();
-            String classeStudente = studenteDAO1.getClasseVirtualeCodiceUnivoco();
+        try (Stream<StudenteDAO> streamStudenti = studenteDAO.getStreamStudenti()) {
+            streamStudenti.forEach(studenti::add);
+        }
 
-            EntityStudente temp = new EntityStudente(nomeStudente, cognomeStudente,emailStudente, passwordStudente, classeStudente);
-            listaStudentiIscritti.add(temp);
+        Map<String, ProfiloPersonaleDAO> profili = ProfiloPersonaleDAO.caricaTuttiConAttivitaDaDB();
+
+        EntityStudente[] costruiti = new EntityStudente[studenti.size()];
+        ForkJoinPool.commonPool().invoke(new CostruzioneStudenti(studenti, profili, costruiti, 0, costruiti.length,
+                new AtomicInteger(), avanzamento));
+        return new ArrayList<>(List.of(costruiti));
+    }
+
+    /**
+     * Costruisce uno studente a partire dalla riga letta dal database e dai profili caricati in blocco.
+     *
+     * @param studenteDAO dati dello studente
+     * @param profili     profili caricati indicizzati per email, {@code null} se il caricamento è fallito
+     * @return studente con il profilo caricato
+     */
+    private static EntityStudente costruisciStudente(StudenteDAO studenteDAO, Map<String, ProfiloPersonaleDAO> profili) {
+        String emailStudente = studenteDAO.getIndirizzoEmailIstituzionale();
+        String nomeStudente = studenteDAO.getNome();
+        String cognomeStudente = studenteDAO.getCognome();
+        String passwordStudente = studenteDAO.getPassword();
+        String classeStudente = studenteDAO.getClasseVirtualeCodiceUnivoco();
+
+        if (profili == null) {
+            return new EntityStudente(nomeStudente, cognomeStudente, emailStudente, passwordStudente, classeStudente);
+        }
+        EntityProfiloPersonale profilo = new EntityProfiloPersonale();
+        ProfiloPersonaleDAO profiloDAO = profili.get(emailStudente);
+        if (profiloDAO != null) {
+            profilo.impostaDaDAO(emailStudente, profiloDAO);
+        } else {
+            //come per un profilo non trovato da EntityProfiloPersonale.ottieniDaDB
+            profilo.setEmailStudente(emailStudente);
+            profilo.setListaAttivita(new ArrayList<>());
+        }
+        return new EntityStudente(nomeStudente, cognomeStudente, emailStudente, passwordStudente, classeStudente, profilo);
+    }
+
+    /**
+     * Attività del fork-join che costruisce gli studenti di un intervallo della lista letta dal database,
+     * dividendolo a metà finché non contiene al più {@code STUDENTI_PER_ATTIVITA} studenti.
+     * Ogni studente viene scritto nella propria posizione dell'array, quindi le attività non condividono stato
+     * se non il contatore degli studenti completati.
+     */
+    //l'attività esiste solo durante l'invoke sul ForkJoinPool e non viene mai serializzata
+    @SuppressWarnings("serial")
+    private static class CostruzioneStudenti extends RecursiveAction {
+        private final List<StudenteDAO> studenti;
+        private final Map<String, ProfiloPersonaleDAO> profili;
+        private final EntityStudente[] costruiti;
+        private final int inizio;
+        private final int fine;
+        private final AtomicInteger completati;
+        private final AvanzamentoCaricamento avanzamento;
+
+        CostruzioneStudenti(List<StudenteDAO> studenti, Map<String, ProfiloPersonaleDAO> profili, EntityStudente[] costruiti,
+                            int inizio, int fine, AtomicInteger completati, AvanzamentoCaricamento avanzamento) {
+            this.studenti = studenti;
+            this.profili = profili;
+            this.costruiti = costruiti;
+            this.inizio = inizio;
+            this.fine = fine;
+            this.completati = completati;
+            this.avanzamento = avanzamento;
+        }
+
+        @Override
+        protected void compute() {
+            if (fine - inizio > STUDENTI_PER_ATTIVITA) {
+                int meta = (inizio + fine) >>> 1;
+                invokeAll(new CostruzioneStudenti(studenti, profili, costruiti, inizio, meta, completati, avanzamento),
+                        new CostruzioneStudenti(studenti, profili, costruiti, meta, fine, completati, avanzamento));
+                return;
+            }
+            for (int i = inizio; i < fine; i++) {
+                costruiti[i] = costruisciStudente(studenti.get(i), profili);
+            }
+            avanzamento.aggiorna(completati.addAndGet(fine - inizio), costruiti.length);
         }
-        return listaStudentiIscritti;
     }
 
     /**
-     * Imposta la lista dei docenti attualmente registrati.
+     * Imposta i docenti attualmente registrati, sostituendo l'indice interno con uno costruito dalla lista.
      *
      * @param docentiIscritti lista di docenti
      */
     public void setDocentiIscritti(ArrayList<EntityDocente> docentiIscritti) {
-        this.docentiIscritti = docentiIscritti;
+        ConcurrentHashMap<String, EntityDocente> indice = new ConcurrentHashMap<>(docentiIscritti.size());
+        for (EntityDocente docente : docentiIscritti) {
+            indice.put(normalizzaEmail(docente.getEmail()), docente);
+        }
+        this.docentiIscritti = indice;
     }
 
     /**
-     * Imposta la lista degli studenti attualmente registrati.
+     * Imposta gli studenti attualmente registrati, sostituendo l'indice interno con uno costruito dalla lista.
      *
      * @param studentiIscritti lista di studenti
      */
     public void setStudentiIscritti(ArrayList<EntityStudente> studentiIscritti) {
-        this.studentiIscritti = studentiIscritti;
+        ConcurrentHashMap<String, EntityStudente> indice = new ConcurrentHashMap<>(studentiIscritti.size());
+        for (EntityStudente studente : studentiIscritti) {
+            indice.put(normalizzaEmail(studente.getEmail()), studente);
+        }
+        this.studentiIscritti = indice;
+        this.archivioStudenti = ArchivioStudenti.VUOTO;
     }
 }
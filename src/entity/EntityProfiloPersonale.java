@@ -2,12 +2,15 @@ package entity;
 
 
 import database.AttivitaDAO;
+import database.DBManager;
 import database.ProfiloPersonaleDAO;
 import database.RiconoscimentoDAO;
-import dto.TaskDidatticoDTO;
+import dto.IntestazioneTaskDTO;
+import dto.PaginaDTO;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Rappresenta il profilo personale di uno studente all'interno del sistema.
@@ -53,37 +56,89 @@ public class EntityProfiloPersonale {
     }
 
     /**
-     * Carica i dati del profilo personale associato all’indirizzo email specificato.
-     * Aggiorna i campi interni con i valori estratti dal database.
+     * Carica i dati del profilo personale associato all’indirizzo email specificato,
+     * insieme a tutte le sue attività, con un'unica query.
+     * Aggiorna i campi interni con i valori estratti dal database e popola {@code listaAttivita},
+     * con prima le attività ancora da consegnare e poi quelle consegnate.
      *
      * @param email indirizzo email dello studente
-     * @return 1 se il caricamento è avvenuto correttamente, -1 altrimenti
+     * @return 1 se il caricamento è avvenuto correttamente, 0 se il profilo non esiste, -1 in caso di errore
      */
     public int ottieniDaDB(String email) {
         ProfiloPersonaleDAO profiloPersonaleDAO = new ProfiloPersonaleDAO();
         profiloPersonaleDAO.setIndirizzoEmailIstituzionale(email);
-        int esito = profiloPersonaleDAO.caricaDaDB();
+        int esito = profiloPersonaleDAO.caricaConAttivitaDaDB();
         if(esito != -1){
-            this.setNumeroTaskSvolti(profiloPersonaleDAO.getNumeroTaskSvolti());
+            this.impostaDaDAO(email, profiloPersonaleDAO);
+        }
+        return esito;
+    }
+
+    /**
+     * Aggiorna i campi interni con i dati di un profilo già letto dal database, insieme alle sue attività,
+     * ad esempio con {@link ProfiloPersonaleDAO#caricaConAttivitaDaDB(java.util.List)}. Popola {@code listaAttivita}
+     * con prima le attività ancora da consegnare e poi quelle consegnate.
+     *
+     * @param email               indirizzo email dello studente
+     * @param profiloPersonaleDAO profilo letto dal database
+     */
+    void impostaDaDAO(String email, ProfiloPersonaleDAO profiloPersonaleDAO) {
+        this.setNumeroTaskSvolti(profiloPersonaleDAO.getNumeroTaskSvolti());
+        this.setTotalePuntiOttenuti(profiloPersonaleDAO.getTotalePuntiOttenuti());
+        this.setEmailStudente(email);
+
+        ArrayList<EntityAttivita> assegnate = new ArrayList<>();
+        ArrayList<EntityAttivita> consegnate = new ArrayList<>();
+        for (AttivitaDAO a : profiloPersonaleDAO.getListaAttivita()) {
+            EntityTaskDidattico task = new EntityTaskDidattico(
+                    a.getTaskAssociato().getTitolo(),  a.getTaskAssociato().getDescrizione(),  a.getTaskAssociato().getDataDiScadenza(),  a.getTaskAssociato().getNumeroMassimoDiPuntiAssegnabili()
+            );
+            if (a.isConsegnato()) {
+                consegnate.add(new EntityAttivita(this, task, true));
+            } else {
+                assegnate.add(new EntityAttivita(this, task, false));
+            }
+        }
+        assegnate.addAll(consegnate);
+        this.setListaAttivita(assegnate);
+    }
+
+    /**
+     * Consegna il task indicato dello studente. Lo stato dell'attività e i contatori del profilo vengono aggiornati
+     * nel database con un'unica transazione; in caso di successo i contatori locali vengono sostituiti con quelli
+     * aggiornati e l'attività corrispondente in {@code listaAttivita} viene segnata come consegnata.
+     *
+     * @param titolo titolo del task da consegnare
+     * @return 1 se il task è stato consegnato, 0 se lo studente non ha il task o lo aveva già consegnato, -1 in caso di errore
+     */
+    public int consegnaTask(String titolo) {
+        AttivitaDAO attivitaDAO = new AttivitaDAO();
+        int esito = attivitaDAO.consegnaTask(this.emailStudente, titolo);
+        if (esito == 1) {
+            ProfiloPersonaleDAO profiloPersonaleDAO = attivitaDAO.getProfiloPersonaleAssociato();
             this.setTotalePuntiOttenuti(profiloPersonaleDAO.getTotalePuntiOttenuti());
-            this.setEmailStudente(email);
+            this.setNumeroTaskSvolti(profiloPersonaleDAO.getNumeroTaskSvolti());
+            if (this.listaAttivita != null) {
+                for (EntityAttivita a : this.listaAttivita) {
+                    if (a.getTaskAssociato().getTitolo().equals(titolo)) {
+                        a.setConsegnato(true);
+                    }
+                }
+            }
         }
         return esito;
     }
 
     /**
-     * Verifica se il badge specificato è già assegnato allo studente.
-     * Se non presente, procede con l'assegnazione tramite DAO.
+     * Assegna allo studente, con un'unica operazione atomica, tutti i badge indicati che non ha ancora ottenuto.
      *
-     * @param nomeBadge nome del badge da assegnare
-     * @return 1 se il badge è stato assegnato, 0 se era già presente, -1 in caso di errore
+     * @param nomiBadge nomi dei badge di cui lo studente soddisfa i requisiti
+     * @return nomi dei badge assegnati con questa operazione, vuota se erano già tutti presenti,
+     *         oppure {@code null} in caso di errore
      */
-    public int assegnaBadgeSeNonPresente(String nomeBadge) {
+    public List<String> assegnaBadgeSeNonPresenti(List<String> nomiBadge) {
         RiconoscimentoDAO riconoscimentoDAO = new RiconoscimentoDAO();
-        if (!riconoscimentoDAO.studenteHaGiaBadge(this.emailStudente, nomeBadge)) {
-            return riconoscimentoDAO.assegnaBadge(this.emailStudente, nomeBadge);
-        }
-        return 0; // badge già presente
+        return riconoscimentoDAO.assegnaBadgeSeNonPresenti(this.emailStudente, nomiBadge);
     }
 
     /**
@@ -93,14 +148,17 @@ public class EntityProfiloPersonale {
      * Popola la lista locale delle attività {@code listaAttivita} dell'oggetto corrente.
      * I dati vengono recuperati attraverso il DAO {@link AttivitaDAO}, trasformati in
      * oggetti {@link EntityAttivita} e classificati in base allo stato di consegna.
+     * Le attività assegnate e quelle completate vengono lette in parallelo.
      *
      * @param emailStudente indirizzo email istituzionale dello studente di riferimento
      */
     public void caricaAttivitaDaDB(String emailStudente) {
         AttivitaDAO attivitaDAO = new AttivitaDAO();
 
-        List<AttivitaDAO> attivitaAssegnate = attivitaDAO.selezionaTaskAssegnati(emailStudente);
-        List<AttivitaDAO> attivitaCompletate = attivitaDAO.ottieniTaskConsegnatiDaStudente(emailStudente);
+        CompletableFuture<List<AttivitaDAO>> assegnate = DBManager.eseguiAsync(() -> attivitaDAO.selezionaTaskAssegnati(emailStudente));
+        CompletableFuture<List<AttivitaDAO>> completate = DBManager.eseguiAsync(() -> attivitaDAO.ottieniTaskConsegnatiDaStudente(emailStudente));
+        List<AttivitaDAO> attivitaAssegnate = DBManager.attendi(assegnate);
+        List<AttivitaDAO> attivitaCompletate = DBManager.attendi(completate);
 
         ArrayList<EntityAttivita> listaFinale = new ArrayList<>();
 
@@ -127,14 +185,14 @@ public class EntityProfiloPersonale {
      * I dati vengono ricavati dalla lista locale di {@link EntityAttivita}, filtrando
      * quelle il cui flag {@code consegnato} è impostato su {@code false}.
      *
-     * @return lista di oggetti {@link TaskDidatticoDTO} rappresentanti i task assegnati e non completati
+     * @return lista di oggetti {@link IntestazioneTaskDTO} rappresentanti i task assegnati e non completati
      */
-    public List<TaskDidatticoDTO> ottieniTaskAssegnati() {
-        List<TaskDidatticoDTO> assegnati = new ArrayList<>();
+    public List<IntestazioneTaskDTO> ottieniTaskAssegnati() {
+        List<IntestazioneTaskDTO> assegnati = new ArrayList<>();
         for (EntityAttivita a : this.listaAttivita) {
             if (!a.isConsegnato()) {
-                assegnati.add(new TaskDidatticoDTO(
-                        a.getTaskAssociato().getTitolo(), a.getTaskAssociato().getDescrizione(),
+                assegnati.add(new IntestazioneTaskDTO(
+                        a.getTaskAssociato().getTitolo(),
                         a.getTaskAssociato().getDataDiScadenza(),a.getTaskAssociato().getNumMaxDiPuntiAssegnabili()
                 ));
             }
@@ -148,14 +206,14 @@ public class EntityProfiloPersonale {
      * La lista viene costruita filtrando le attività presenti nella lista locale
      * in cui il flag {@code consegnato} risulta {@code true}.
      *
-     * @return lista di {@link TaskDidatticoDTO} relativi ai task completati
+     * @return lista di {@link IntestazioneTaskDTO} relativi ai task completati
      */
-    public List<TaskDidatticoDTO> ottieniTaskConsegnatiDaStudente() {
-        List<TaskDidatticoDTO> completati = new ArrayList<>();
+    public List<IntestazioneTaskDTO> ottieniTaskConsegnatiDaStudente() {
+        List<IntestazioneTaskDTO> completati = new ArrayList<>();
         for (EntityAttivita a : this.listaAttivita) {
             if (a.isConsegnato()) {
-                completati.add(new TaskDidatticoDTO(
-                        a.getTaskAssociato().getTitolo(), a.getTaskAssociato().getDescrizione(),
+                completati.add(new IntestazioneTaskDTO(
+                        a.getTaskAssociato().getTitolo(),
                         a.getTaskAssociato().getDataDiScadenza(),a.getTaskAssociato().getNumMaxDiPuntiAssegnabili()
                 ));
             }
@@ -163,6 +221,19 @@ public class EntityProfiloPersonale {
         return completati;
     }
 
+    /**
+     * Restituisce una pagina dei task consegnati dallo studente, letta dal database e ordinata per titolo.
+     * A differenza di {@link #ottieniTaskConsegnatiDaStudente()} non richiede che le attività siano state caricate.
+     *
+     * @param cursore    cursore restituito con la pagina precedente, {@code null} per la prima pagina
+     * @param dimensione numero massimo di task della pagina
+     * @return pagina di {@link IntestazioneTaskDTO}, oppure {@code null} in caso di errore
+     */
+    public PaginaDTO<IntestazioneTaskDTO> getPaginaTaskConsegnati(String cursore, int dimensione) {
+        AttivitaDAO attivitaDAO = new AttivitaDAO();
+        return attivitaDAO.getPaginaTaskStudente(this.emailStudente, true, cursore, dimensione);
+    }
+
     //get e set
 
     /**
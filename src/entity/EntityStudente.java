@@ -2,13 +2,16 @@ package entity;
 
 import database.StudenteDAO;
 
+import java.util.ArrayList;
+
 /**
  * Rappresenta un'entità studente nel sistema.
  * <p>
  * Ogni studente è caratterizzato da nome, cognome, indirizzo email istituzionale,
  * password e, facoltativamente, un'associazione a una classe virtuale.
  * Dispone inoltre di un {@link EntityProfiloPersonale}, che traccia l'attività
- * e i progressi dello studente.
+ * e i progressi dello studente. Il profilo può essere letto dal database al primo utilizzo
+ * (vedi {@link #getProfiloPersonale()}), così che all'avvio non serva caricare i profili di tutti gli studenti.
  * <p>
  * La classe fornisce metodi per accedere e modificare i dati dello studente,
  * interfacciandosi con il livello DAO per la persistenza nel database.
@@ -49,6 +52,27 @@ public class EntityStudente {
         if (recuperaProfiloPersonale() == -1) this.profiloPersonale.creaProfiloPersonale(this.email);
     }
 
+    /**
+     * Costruttore parametrico che utilizza un profilo personale già caricato, senza accedere al database.
+     * Utilizzato quando i profili di più studenti vengono letti in blocco. Se il profilo è {@code null}
+     * verrà letto dal database al primo utilizzo.
+     *
+     * @param nome                  nome dello studente
+     * @param cognome               cognome dello studente
+     * @param email                 indirizzo email istituzionale
+     * @param password              password dell'account
+     * @param codiceClasseAssociata codice della classe virtuale a cui è iscritto (può essere null)
+     * @param profiloPersonale      profilo personale dello studente, oppure {@code null} per leggerlo al primo utilizzo
+     */
+    public EntityStudente(String nome, String cognome, String email, String password, String codiceClasseAssociata, EntityProfiloPersonale profiloPersonale) {
+        this.nome = nome;
+        this.cognome = cognome;
+        this.email = email;
+        this.password = password;
+        this.codiceClasseAssociata = codiceClasseAssociata;
+        this.profiloPersonale = profiloPersonale;
+    }
+
     /**
      * Carica i dati dello studente dal database utilizzando l'indirizzo email.
      *
@@ -97,9 +121,10 @@ public class EntityStudente {
      * @return 1 se la creazione ha avuto successo, -1 in caso di errore
      */
     public int creaProfiloPersonale(){
-        int ret = this.profiloPersonale.creaProfiloPersonale(this.email);
+        EntityProfiloPersonale profilo = getProfiloPersonale();
+        int ret = profilo.creaProfiloPersonale(this.email);
         if(ret != -1){
-            this.profiloPersonale.setEmailStudente(this.email);
+            profilo.setEmailStudente(this.email);
         }
         return ret;
     }
@@ -107,6 +132,7 @@ public class EntityStudente {
     /**
      * Recupera i dati del profilo personale dallo studente tramite DAO
      * e carica le attivita relative a quel profilo.
+     * Profilo e attività vengono letti con un'unica query (vedi {@link EntityProfiloPersonale#ottieniDaDB(String)}).
      *
      * @return 1 se il caricamento ha avuto successo, -1 in caso di errore
      */
@@ -115,11 +141,21 @@ public class EntityStudente {
         int esito = profiloPersonaleRecuperato.ottieniDaDB(this.email);
         if(esito != -1){
             this.profiloPersonale= profiloPersonaleRecuperato;
-            this.profiloPersonale.caricaAttivitaDaDB(this.email);
         }
         return esito;
     }
 
+    /**
+     * Registra nel database la data e l'ora correnti come ultimo accesso dello studente.
+     * Gli studenti che hanno fatto accesso più di recente vengono caricati per primi all'avvio
+     * (vedi {@link EntityPiattaformaDigitale#studentiDaPrecaricare}).
+     *
+     * @return 1 se l'operazione è andata a buon fine, 0 se lo studente non esiste, -1 in caso di errore
+     */
+    public int registraAccesso(){
+        return new StudenteDAO().registraAccesso(this.email);
+    }
+
     //  Getter e Setter
 
     /**
@@ -196,10 +232,18 @@ public class EntityStudente {
 
     /**
      * Restituisce l'oggetto {@link EntityProfiloPersonale} associato allo studente.
+     * Se il profilo non è ancora stato caricato viene letto ora dal database; se la lettura fallisce
+     * viene restituito un profilo vuoto, senza memorizzarlo, e la lettura verrà ritentata al prossimo utilizzo.
      *
      * @return profilo personale
      */
     public EntityProfiloPersonale getProfiloPersonale() {
+        if (profiloPersonale == null && recuperaProfiloPersonale() == -1) {
+            EntityProfiloPersonale vuoto = new EntityProfiloPersonale();
+            vuoto.setEmailStudente(this.email);
+            vuoto.setListaAttivita(new ArrayList<>());
+            return vuoto;
+        }
         return profiloPersonale;
     }
 
@@ -9,7 +9,8 @@ import java.util.ArrayList;
  * Rappresenta un task didattico associato a una classe virtuale.
  * <p>
  * Ogni task è caratterizzato da un titolo, una descrizione, una data di scadenza
- * e un numero massimo di punti assegnabili.
+ * e un numero massimo di punti assegnabili. La descrizione dei task letti dagli elenchi
+ * viene caricata solo quando viene richiesta.
  * Questa classe fornisce anche metodi per creare il task nel database e associarlo
  * automaticamente agli studenti della classe.
  * <p>
@@ -105,10 +106,20 @@ public class EntityTaskDidattico {
 
     /**
      * Restituisce la descrizione del task.
+     * <p>
+     * I task letti dagli elenchi non hanno la descrizione, che viene quindi caricata dal database
+     * alla prima richiesta tramite {@link TaskDidatticoDAO#caricaDescrizioneDaDB()}.
      *
-     * @return descrizione testuale
+     * @return descrizione testuale, {@code null} se il task non esiste o in caso di errore
      */
     public String getDescrizione() {
+        if (descrizione == null && titolo != null) {
+            TaskDidatticoDAO taskDidatticoDAO = new TaskDidatticoDAO();
+            taskDidatticoDAO.setTitolo(titolo);
+            if (taskDidatticoDAO.caricaDescrizioneDaDB() == 1) {
+                this.descrizione = taskDidatticoDAO.getDescrizione();
+            }
+        }
         return descrizione;
     }
 